@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# Load test for the upload file handler (GET /products/<file>), side by side with the
+# resource handler it replaced.
+#
+# Both backends serve uploads/ relative to their working directory. Start both from the same
+# scratch directory, never from the repository, so the test image stays out of the live
+# uploads/products. For example:
+#   SCRATCH=$(mktemp -d)
+#   (cd "$SCRATCH" && java -jar <jar built before UploadFileHandler> --server.port=8081) &
+#   (cd "$SCRATCH" && java -jar <current jar> --server.port=8082) &
+# then, from the repository root:
+#   bench/uploads.sh <scratch-dir> <old-base-url> <new-base-url> [duration] [connections]
+#
+# Drops a 1 MiB content-addressed test image into <scratch-dir>/uploads/products, then measures
+# a full GET, a 64 KiB Range GET and a conditional GET answered with 304 against each backend.
+# Uses wrk when it is installed, otherwise ab. Full output is appended to bench_output.txt,
+# and a requests/s summary for both handlers is printed at the end.
+set -euo pipefail
+
+if [ $# -lt 3 ]; then
+    echo "usage: $0 <scratch-dir> <old-base-url> <new-base-url> [duration] [connections]" >&2
+    exit 2
+fi
+SCRATCH=$1
+OLD_URL=$2
+NEW_URL=$3
+DURATION=${4:-30s}
+CONNECTIONS=${5:-64}
+OUT=bench_output.txt
+
+if [ ! -d "$SCRATCH" ]; then
+    echo "$SCRATCH is not a directory" >&2
+    exit 2
+fi
+if [ "$(cd "$SCRATCH" && pwd -P)" = "$(pwd -P)" ] || [ -d "$SCRATCH/src/main/java" ]; then
+    echo "$SCRATCH looks like the repository; use a scratch directory so live uploads are not touched" >&2
+    exit 2
+fi
+
+# Fixed seed, so every run serves the same bytes under the same name
+FILE=$(mktemp)
+trap 'rm -f "$FILE"' EXIT
+head -c 1048576 /dev/zero | openssl enc -aes-128-ctr -pass pass:upload-bench -nosalt -pbkdf2 2>/dev/null > "$FILE"
+NAME="$(sha256sum "$FILE" | cut -d' ' -f1).jpg"
+mkdir -p "$SCRATCH/uploads/products"
+cp "$FILE" "$SCRATCH/uploads/products/$NAME"
+
+etag_of() {
+    local etag
+    etag=$(curl -sfI "$1" | tr -d '\r' | awk -F': ' 'tolower($1) == "etag" {print $2}')
+    if [ -z "$etag" ]; then
+        echo "No ETag from $1; is that backend running from $SCRATCH?" >&2
+        exit 1
+    fi
+    echo "$etag"
+}
+
+OLD_ETAG=$(etag_of "$OLD_URL/products/$NAME")
+NEW_ETAG=$(etag_of "$NEW_URL/products/$NAME")
+
+# run <label> <url> [header ...]; prints requests/s, full output goes to $OUT
+run() {
+    local label=$1 url=$2
+    shift 2
+    local result headers=()
+    for header in "$@"; do headers+=(-H "$header"); done
+    if command -v wrk > /dev/null; then
+        result=$(wrk -t4 -c"$CONNECTIONS" -d"$DURATION" --latency ${headers[@]+"${headers[@]}"} "$url")
+    else
+        result=$(ab -k -q -c "$CONNECTIONS" -t "${DURATION%s}" ${headers[@]+"${headers[@]}"} "$url")
+    fi
+    { echo "== $label"; echo "$result"; } >> "$OUT"
+    echo "$result" | awk '/^Requests\/sec:/ {print $2} /^Requests per second:/ {print $4}'
+}
+
+echo >> "$OUT"
+echo "# $(date -u +%FT%TZ) $(uname -sm) old=$OLD_URL new=$NEW_URL duration=$DURATION connections=$CONNECTIONS" | tee -a "$OUT"
+printf '%-20s %14s %14s\n' "requests/s" "old handler" "new handler" | tee -a "$OUT"
+compare() {
+    local label=$1 old new
+    shift
+    old=$(run "$label (old)" "$OLD_URL/products/$NAME" "${@/\{etag\}/$OLD_ETAG}")
+    new=$(run "$label (new)" "$NEW_URL/products/$NAME" "${@/\{etag\}/$NEW_ETAG}")
+    printf '%-20s %14s %14s\n' "$label" "$old" "$new" | tee -a "$OUT"
+}
+compare "full 1 MiB body"
+compare "range 64 KiB" "Range: bytes=0-65535"
+compare "conditional (304)" "If-None-Match: {etag}"
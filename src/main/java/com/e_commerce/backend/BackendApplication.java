@@ -2,6 +2,7 @@ package com.e_commerce.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.servlet.autoconfigure.MultipartAutoConfiguration;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -10,7 +11,10 @@ import com.e_commerce.backend.entity.User;
 import com.e_commerce.backend.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-@SpringBootApplication
+// Uploads parse the multipart body themselves (StreamingUploadService); with container multipart
+// handling on, every upload would first be spooled to a temp file. Excluded here rather than via a
+// property so tests, WAR deployments and custom runners get the same setup.
+@SpringBootApplication(exclude = MultipartAutoConfiguration.class)
 public class BackendApplication {
 
 
@@ -0,0 +1,111 @@
+package com.e_commerce.backend.config;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.IdempotencyRecord;
+import com.e_commerce.backend.entity.InventoryLedgerEntry;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.OutboxMessage;
+import com.e_commerce.backend.entity.Product;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Creates the indexes declared with @Indexed / @CompoundIndex on our entities.
+ * Spring Data no longer creates them automatically, so without this the query paths
+ * that rely on them would silently fall back to collection scans.
+ *
+ * Also owns the TTL index that expires abandoned carts (cart.retention after their last
+ * change) and prints collection/index sizes at startup, to keep an eye on whether the
+ * working set still fits in memory.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            Product.class, Cart.class, Order.class, InventoryLedgerEntry.class, IdempotencyRecord.class, OutboxMessage.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Value("${cart.retention:30d}")
+    private Duration cartRetention;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(index -> {
+                try {
+                    indexOps.createIndex(index);
+                } catch (Exception e) {
+                    System.out.println("Could not create index on " + entity.getSimpleName() + ": " + e.getMessage());
+                }
+            });
+        }
+        ensureCartTtl();
+        reportCollectionSizes();
+    }
+
+    private void ensureCartTtl() {
+        Index ttl = new Index().on("updatedAt", Sort.Direction.ASC).expire(cartRetention);
+        try {
+            mongoTemplate.indexOps(Cart.class).createIndex(ttl);
+        } catch (Exception e) {
+            // Index already exists with another retention: change it in place instead of rebuilding
+            try {
+                mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(Cart.class))
+                        .append("index", new Document("keyPattern", new Document("updatedAt", 1))
+                                .append("expireAfterSeconds", cartRetention.toSeconds())));
+            } catch (Exception collModError) {
+                System.out.println("Could not set cart retention to " + cartRetention + ": " + collModError.getMessage());
+            }
+        }
+    }
+
+    private void reportCollectionSizes() {
+        long totalData = 0, totalIndexes = 0;
+        for (String name : new TreeSet<>(mongoTemplate.getCollectionNames())) {
+            try {
+                Document stats = mongoTemplate.executeCommand(new Document("collStats", name));
+                long size = number(stats, "size"), indexSize = number(stats, "totalIndexSize");
+                totalData += size;
+                totalIndexes += indexSize;
+                System.out.println("Collection " + name + ": " + number(stats, "count") + " docs, "
+                        + mb(size) + " data, " + mb(number(stats, "storageSize")) + " on disk, "
+                        + mb(indexSize) + " indexes");
+            } catch (Exception e) {
+                System.out.println("Could not read stats for " + name + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Collections total: " + mb(totalData) + " data, " + mb(totalIndexes) + " indexes");
+    }
+
+    private static long number(Document stats, String key) {
+        Object value = stats.get(key);
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1fMB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,193 @@
+package com.e_commerce.backend.config;
+
+import com.e_commerce.backend.service.ImageDerivativeService;
+import com.e_commerce.backend.service.UploadStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * Serves uploaded files (/products/**, /avatars/**) straight from disk.
+ *
+ * - Bodies go out through Tomcat's sendfile when the connector supports it, otherwise
+ *   through FileChannel.transferTo, never through a heap-buffered Resource stream.
+ * - Single byte ranges (Range / If-Range) are honoured; multi-range requests get the whole file.
+ * - ETag / If-None-Match and Last-Modified / If-Modified-Since answer 304s.
+ * - Upload names are unique per upload, so those files are cached as immutable for a year.
+ */
+@Component
+public class UploadFileHandler implements HttpRequestHandler {
+
+    private static final Path PRODUCTS_ROOT = UploadStore.Area.PRODUCTS.root();
+    private static final Path AVATARS_ROOT = UploadStore.Area.AVATARS.root();
+
+    // <sha256>.<ext> (content-addressed), and the legacy UUID_name / <epoch millis>-name uploads,
+    // are never overwritten with different bytes
+    private static final Pattern IMMUTABLE_NAME = Pattern.compile(
+            "^([0-9a-f]{64}\\.[a-z0-9]{1,5}|[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}_.+|\\d{13}-.+)$");
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=0, must-revalidate";
+    private static final String SHORT = "public, max-age=60";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        Path original = resolve(request.getServletPath());
+        if (original == null || !Files.isRegularFile(original)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // ?size= picks a derivative; until it exists the original is served with a short lifetime
+        Path file = original;
+        String cacheControl = IMMUTABLE_NAME.matcher(original.getFileName().toString()).matches() ? IMMUTABLE : REVALIDATE;
+        ImageDerivativeService.Size size = ImageDerivativeService.Size.parse(request.getParameter("size"));
+        if (size != null) {
+            Path derivative = ImageDerivativeService.derivativePath(original, size);
+            if (Files.isRegularFile(derivative)) {
+                file = derivative;
+            } else if (IMMUTABLE.equals(cacheControl)) {
+                cacheControl = SHORT;
+            }
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000; // HTTP dates have second precision
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return; // 304 with ETag and Last-Modified already set
+        }
+        MediaType contentType = MediaTypeFactory.getMediaType(file.getFileName().toString()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(contentType.toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (head || count == 0) return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself (sendfile(2)) once this request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end - position + 1, out);
+                if (sent <= 0) break;
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Maps /products/<name> and /avatars/<name> to a file inside the upload folder, or null.
+     */
+    static Path resolve(String servletPath) {
+        Path root;
+        String name;
+        if (servletPath.startsWith("/products/")) {
+            root = PRODUCTS_ROOT;
+            name = servletPath.substring("/products/".length());
+        } else if (servletPath.startsWith("/avatars/")) {
+            root = AVATARS_ROOT;
+            name = servletPath.substring("/avatars/".length());
+        } else {
+            return null;
+        }
+        // Upload folders are flat; derivatives are only reachable through ?size=
+        if (name.isEmpty() || name.startsWith(".") || name.contains("/") || name.contains("\\")) return null;
+        Path file = root.resolve(name).normalize();
+        return file.getParent().equals(root) ? file : null;
+    }
+
+    static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(etag);
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {start, end} for a single satisfiable range, an empty array to ignore the header
+     * (malformed or multi-range: send the whole file), or null when unsatisfiable.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return null;
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) return null;
+            if (end < start) return new long[0];
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -1,27 +1,24 @@
 package com.e_commerce.backend.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.io.File;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
+import java.util.Map;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 1. handler for avatars
-        Path avatarPath = Paths.get("uploads", "avatars").toAbsolutePath();
-        String avatarLocation = "file:" + avatarPath.toString() + File.separator;
-        registry.addResourceHandler("/avatars/**")
-                .addResourceLocations(avatarLocation);
+@Configuration
+public class WebConfig {
 
-        // 2. handler for product images
-        Path productPath = Paths.get("uploads", "products").toAbsolutePath();
-        String productLocation = "file:" + productPath.toString() + File.separator;
-        registry.addResourceHandler("/products/**")
-                .addResourceLocations(productLocation);
+    // Uploaded avatars (uploads/avatars) and product images (uploads/products),
+    // served by UploadFileHandler instead of the default resource chain
+    @Bean
+    public SimpleUrlHandlerMapping uploadHandlerMapping(UploadFileHandler uploadFileHandler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping();
+        mapping.setUrlMap(Map.of(
+                "/avatars/**", uploadFileHandler,
+                "/products/**", uploadFileHandler));
+        mapping.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return mapping;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,7 @@
 package com.e_commerce.backend.controller;
 
 import com.e_commerce.backend.entity.Cart;
-import com.e_commerce.backend.repository.CartRepository;
+import com.e_commerce.backend.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -9,7 +9,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,64 +18,41 @@ import java.util.Optional;
 public class CartController {
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartService cartService;
 
     /**
-     * Get the current user's cart
+     * Get the current user's cart, re-priced from the catalog with stock annotations per line
      */
     @GetMapping
     public ResponseEntity<?> getCart() {
         String userId = getCurrentUserId();
-        Optional<Cart> cart = cartRepository.findByUserId(userId);
+        Optional<Cart> cart = cartService.getCart(userId);
         
         if (cart.isPresent()) {
-            return ResponseEntity.ok(cart.get());
+            return ResponseEntity.ok(cartService.enrich(cart.get()));
         }
         
-        // Create a new cart if it doesn't exist
-        Cart newCart = new Cart();
-        newCart.setUserId(userId);
-        Cart savedCart = cartRepository.save(newCart);
-        return ResponseEntity.ok(savedCart);
+        // No cart yet: answer with an empty one, stored only once the first item is added
+        Cart emptyCart = new Cart();
+        emptyCart.setUserId(userId);
+        return ResponseEntity.ok(emptyCart);
     }
 
     /**
-     * Add item to cart
+     * Add item to cart (or increase the quantity of an existing line) in one atomic update
      */
     @PostMapping("/add")
     public ResponseEntity<?> addItemToCart(@RequestBody Cart.CartItem item) {
         String userId = getCurrentUserId();
-        Optional<Cart> cartOptional = cartRepository.findByUserId(userId);
-            System.out.println("Received Rating: " + item.getRating());
-        Cart cart;
-        if (cartOptional.isPresent()) {
-            cart = cartOptional.get();
-        } else {
-            cart = new Cart();
-            cart.setUserId(userId);
+        try {
+            return ResponseEntity.ok(cartService.addItem(userId, item));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
-
-        // Check if item already exists in cart
-        Optional<Cart.CartItem> existingItem = cart.getItems()
-                .stream()
-                .filter(i -> i.getProductId().equals(item.getProductId()))
-                .findFirst();
-
-        if (existingItem.isPresent()) {
-            // If item exists, increase quantity
-            existingItem.get().setQuantity(existingItem.get().getQuantity() + item.getQuantity());
-        } else {
-            // Add new item to cart
-            cart.getItems().add(item);
-        }
-
-        cart.setUpdatedAt(LocalDateTime.now());
-        Cart updatedCart = cartRepository.save(cart);
-        return ResponseEntity.ok(updatedCart);
     }
 
     /**
-     * Update item quantity in cart
+     * Update item quantity in cart; 0 or less removes the item
      */
     @PutMapping("/update/{productId}")
     public ResponseEntity<?> updateItemQuantity(
@@ -84,33 +60,16 @@ public class CartController {
             @RequestBody Map<String, Integer> request) {
         
         String userId = getCurrentUserId();
-        Optional<Cart> cartOptional = cartRepository.findByUserId(userId);
-        
-        if (!cartOptional.isPresent()) {
-            return ResponseEntity.status(404).body(Map.of("message", "Cart not found"));
-        }
-
-        Cart cart = cartOptional.get();
         Integer newQuantity = request.get("quantity");
-
-        Optional<Cart.CartItem> itemToUpdate = cart.getItems()
-                .stream()
-                .filter(i -> i.getProductId().equals(productId))
-                .findFirst();
-
-        if (itemToUpdate.isPresent()) {
-            if (newQuantity > 0) {
-                itemToUpdate.get().setQuantity(newQuantity);
-            } else {
-                // Remove item if quantity is 0 or less
-                cart.getItems().removeIf(i -> i.getProductId().equals(productId));
-            }
-            cart.setUpdatedAt(LocalDateTime.now());
-            Cart updatedCart = cartRepository.save(cart);
-            return ResponseEntity.ok(updatedCart);
+        if (newQuantity == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "quantity is required"));
         }
 
-        return ResponseEntity.status(404).body(Map.of("message", "Item not found in cart"));
+        Optional<Cart> updatedCart = cartService.updateQuantity(userId, productId, newQuantity);
+        if (updatedCart.isPresent()) {
+            return ResponseEntity.ok(updatedCart.get());
+        }
+        return notFound(userId);
     }
 
     /**
@@ -119,22 +78,11 @@ public class CartController {
     @DeleteMapping("/remove/{productId}")
     public ResponseEntity<?> removeItemFromCart(@PathVariable String productId) {
         String userId = getCurrentUserId();
-        Optional<Cart> cartOptional = cartRepository.findByUserId(userId);
-        
-        if (!cartOptional.isPresent()) {
-            return ResponseEntity.status(404).body(Map.of("message", "Cart not found"));
+        Optional<Cart> updatedCart = cartService.removeItem(userId, productId);
+        if (updatedCart.isPresent()) {
+            return ResponseEntity.ok(updatedCart.get());
         }
-
-        Cart cart = cartOptional.get();
-        boolean removed = cart.getItems().removeIf(i -> i.getProductId().equals(productId));
-
-        if (removed) {
-            cart.setUpdatedAt(LocalDateTime.now());
-            Cart updatedCart = cartRepository.save(cart);
-            return ResponseEntity.ok(updatedCart);
-        }
-
-        return ResponseEntity.status(404).body(Map.of("message", "Item not found in cart"));
+        return notFound(userId);
     }
 
     /**
@@ -142,19 +90,18 @@ public class CartController {
      */
     @DeleteMapping("/clear")
     public ResponseEntity<?> clearCart() {
-        String userId = getCurrentUserId();
-        Optional<Cart> cartOptional = cartRepository.findByUserId(userId);
-        
-        if (cartOptional.isPresent()) {
-            Cart cart = cartOptional.get();
-            cart.getItems().clear();
-            cart.setUpdatedAt(LocalDateTime.now());
-            cartRepository.save(cart);
-        }
-        
+        cartService.clear(getCurrentUserId());
         return ResponseEntity.ok(Map.of("message", "Cart cleared successfully"));
     }
 
+    // Only runs when an update matched nothing, to keep the two original error messages apart
+    private ResponseEntity<?> notFound(String userId) {
+        if (!cartService.cartExists(userId)) {
+            return ResponseEntity.status(404).body(Map.of("message", "Cart not found"));
+        }
+        return ResponseEntity.status(404).body(Map.of("message", "Item not found in cart"));
+    }
+
     /**
      * Helper method to get current authenticated user's email from JWT token
      */
@@ -2,12 +2,20 @@ package com.e_commerce.backend.controller;
 
 import com.e_commerce.backend.entity.Cart;
 import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.OutboxMessage;
 import com.e_commerce.backend.entity.Product;
 import com.e_commerce.backend.enums.OrderStatus;
 import com.e_commerce.backend.enums.PaymentMethod;
 import com.e_commerce.backend.repository.CartRepository;
 import com.e_commerce.backend.repository.OrderRepository;
-import com.e_commerce.backend.repository.ProductRepository;
+import com.e_commerce.backend.service.CartService;
+import com.e_commerce.backend.service.IdempotencyService;
+import com.e_commerce.backend.service.InsufficientStockException;
+import com.e_commerce.backend.service.InventoryService;
+import com.e_commerce.backend.service.OrderHistoryService;
+import com.e_commerce.backend.service.OutboxService;
+import com.e_commerce.backend.service.ProductCacheService;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,6 +25,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -29,24 +39,53 @@ public class OrderController {
     private CartRepository cartRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private CartService cartService;
+
+    @Autowired
+    private InventoryService inventoryService;
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ProductCacheService productCache;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
     /**
      * Create an order and reduce stock for ordered products.
      * This endpoint will check product availability and decrement stock accordingly.
      * It accepts an optional `cartId` in the payload so the frontend can call this
      * endpoint without authentication during local testing.
+     *
+     * With an Idempotency-Key header a retried request gets the original response back
+     * (Idempotent-Replayed: true) instead of placing a second order.
      */
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> createOrder(
+            @RequestBody Map<String, Object> payload,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) return placeOrder(payload);
+        return idempotencyService.execute(getCurrentUserId(), idempotencyKey, payload, () -> placeOrder(payload));
+    }
+
+    private ResponseEntity<?> placeOrder(Map<String, Object> payload) {
         // First, try to locate cart by provided cartId (frontend supplies this for unauthenticated tests)
         Optional<Cart> cartOpt = Optional.empty();
         if (payload != null && payload.containsKey("cartId") && payload.get("cartId") != null) {
             String cartId = String.valueOf(payload.get("cartId"));
             cartOpt = cartRepository.findById(cartId);
+            // With write-behind carts, Mongo may lag the user's latest edits
+            if (cartOpt.isPresent() && cartService.flush(cartOpt.get().getUserId())) {
+                cartOpt = cartRepository.findById(cartId);
+            }
         }
 
         // If cart not found by id, try by authenticated user
@@ -54,6 +93,7 @@ public class OrderController {
             try {
                 String userId = getCurrentUserId();
                 if (userId != null) {
+                    cartService.flush(userId);
                     cartOpt = cartRepository.findByUserId(userId);
                 }
             } catch (Exception ignored) {
@@ -71,28 +111,25 @@ public class OrderController {
             return ResponseEntity.status(400).body(Map.of("message", "Cart is empty"));
         }
 
-        // Validate stock
+        // Reserve stock for every line in one conditional bulk update (all or nothing)
+        Map<String, Integer> quantities = new LinkedHashMap<>();
         for (Cart.CartItem item : cart.getItems()) {
-            Optional<Product> pOpt = productRepository.findById(item.getProductId());
-            if (!pOpt.isPresent()) {
-                return ResponseEntity.status(404).body(Map.of("message", "Product not found: " + item.getProductId()));
-            }
-            Product p = pOpt.get();
-            Integer qty = p.getStockQuantity() == null ? 0 : p.getStockQuantity();
-            if (qty < item.getQuantity()) {
-                return ResponseEntity.status(400).body(Map.of("message", "Insufficient stock for product " + p.getName()));
-            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
-
-        // Decrement stock
-        for (Cart.CartItem item : cart.getItems()) {
-            Optional<Product> pOpt = productRepository.findById(item.getProductId());
-            if (pOpt.isPresent()) {
-                Product p = pOpt.get();
-                int newQty = (p.getStockQuantity() == null ? 0 : p.getStockQuantity()) - item.getQuantity();
-                p.setStockQuantity(newQty);
-                productRepository.save(p);
+        // Charge what the cart page showed: the current catalog price, as CartService.enrich does
+        Map<String, Product> products = new HashMap<>();
+        productCache.findAllById(quantities.keySet()).forEach(p -> products.put(p.getId(), p));
+
+        InventoryService.Reservation reservation;
+        try {
+            reservation = inventoryService.reserve(quantities);
+        } catch (InsufficientStockException e) {
+            String productId = e.getProductIds().get(0);
+            Optional<Product> pOpt = productCache.findById(productId);
+            if (pOpt.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("message", "Product not found: " + productId));
             }
+            return ResponseEntity.status(400).body(Map.of("message", "Insufficient stock for product " + pOpt.get().getName()));
         }
 
         // Build and persist order
@@ -102,15 +139,17 @@ public class OrderController {
 
         double total = 0.0;
         for (Cart.CartItem item : cart.getItems()) {
+            Product product = products.get(item.getProductId());
+            Double price = product != null && product.getPrice() != null ? product.getPrice() : item.getPrice();
             Order.OrderItem oi = new Order.OrderItem();
             oi.setProductId(item.getProductId());
-            oi.setName(item.getName());
-            oi.setPrice(item.getPrice());
+            oi.setName(product != null && product.getName() != null ? product.getName() : item.getName());
+            oi.setPrice(price);
             oi.setQuantity(item.getQuantity());
             // Copy multi-image list; legacy single image falls back to first entry
             oi.setImages(new ArrayList<>(Optional.ofNullable(item.getImages()).orElse(Collections.emptyList())));
             order.getItems().add(oi);
-            total += (item.getPrice() == null ? 0.0 : item.getPrice()) * (item.getQuantity() == null ? 0 : item.getQuantity());
+            total += (price == null ? 0.0 : price) * (item.getQuantity() == null ? 0 : item.getQuantity());
         }
 
         order.setTotal(total);
@@ -134,21 +173,46 @@ public class OrderController {
                 order.setStatus(OrderStatus.PENDING);
             }
         }
-        orderRepository.save(order);
+        // Follow-up work is queued before the order is stored (see OutboxService) and runs after we answer.
+        // Either write failing gives the reserved stock back.
+        order.setId(new ObjectId().toHexString());
+        try {
+            outboxService.record(order.getId(), OutboxMessage.ORDER_CONFIRMATION, OutboxMessage.LOW_STOCK_CHECK);
+            orderRepository.save(order);
+        } catch (RuntimeException e) {
+            inventoryService.release(reservation);
+            try {
+                outboxService.discard(order.getId());
+            } catch (RuntimeException discardFailed) {
+                // Orphaned messages are discarded by the dispatcher once it finds no order
+                e.addSuppressed(discardFailed);
+            }
+            throw e;
+        }
+        inventoryService.confirm(reservation);
+        outboxService.signal();
 
-        // Clear cart
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        // Clear cart (a single delete, so it never rewrites the cart from this stale copy)
+        cartService.clear(cart.getUserId());
 
         return ResponseEntity.ok(Map.of("message", "Order created successfully", "orderId", order.getId()));
     }
 
+    /**
+     * The current user's order history, newest first, as summaries (id, total, status, item
+     * count, first image) in pages of { items, nextCursor }; pass nextCursor back as `cursor`.
+     */
     @GetMapping
-    public ResponseEntity<?> getOrders() {
+    public ResponseEntity<?> getOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         String userId = getCurrentUserId();
         if (userId == null) return ResponseEntity.status(401).body(Map.of("message", "Unauthorized"));
-        java.util.List<Order> orders = orderRepository.findByUserId(userId);
-        return ResponseEntity.ok(orders);
+        try {
+            return ResponseEntity.ok(orderHistoryService.findPage(userId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
@@ -1,22 +1,51 @@
 package com.e_commerce.backend.controller;
 
+import com.e_commerce.backend.dto.BulkProductUpdateDTO;
+import com.e_commerce.backend.dto.BulkUpdateResultDTO;
+import com.e_commerce.backend.dto.ImportReportDTO;
+import com.e_commerce.backend.dto.ProductFilterDTO;
+import com.e_commerce.backend.dto.SearchResultDTO;
 import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
 import com.e_commerce.backend.repository.ProductRepository;
+import com.e_commerce.backend.service.CatalogSnapshotService;
+import com.e_commerce.backend.service.ImageMetadataService;
+import com.e_commerce.backend.service.ProductBulkUpdateService;
+import com.e_commerce.backend.service.ProductCacheService;
+import com.e_commerce.backend.service.ProductCatalogService;
+import com.e_commerce.backend.service.ProductFacetIndex;
+import com.e_commerce.backend.service.ProductImportService;
+import com.e_commerce.backend.service.ProductProjection;
+import com.e_commerce.backend.service.ProductSearchIndex;
+import com.e_commerce.backend.service.ProductSuggestIndex;
+import com.e_commerce.backend.service.ProductVersionService;
+import com.e_commerce.backend.service.StreamingUploadService;
+import com.e_commerce.backend.service.UploadRejectedException;
+import com.e_commerce.backend.service.UploadStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/products")
@@ -26,48 +55,213 @@ public class ProductController {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductCacheService productCache;
+
+    @Autowired
+    private ProductCatalogService catalogService;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggestIndex suggestIndex;
+
+    @Autowired
+    private ProductVersionService versionService;
+
+    @Autowired
+    private CatalogSnapshotService snapshotService;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductBulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private UploadStore uploadStore;
+
+    @Autowired
+    private StreamingUploadService uploadService;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * List products. Without query parameters the full catalog is returned (legacy behaviour);
+     * with any of mainCategory, subCategory, brandName, minPrice, maxPrice, status, sort, cursor
+     * or limit the response is a single keyset page: { items, nextCursor }.
+     * Responses carry a catalog-version ETag; a matching If-None-Match gets 304 without touching Mongo.
+     * `fields` (e.g. fields=name,price or fields=card) limits the returned fields.
+     */
     @GetMapping
-    public List<Product> getAll() {
-        return repository.findAll();
+    public ResponseEntity<?> getAll(ProductFilterDTO filter, WebRequest request, HttpServletResponse servletResponse) {
+        // Read the version before the data: the version is bumped only after caches and snapshots are
+        // invalidated, and coalesced loads are keyed by version, so the body is at least this new
+        String etag = versionService.catalogETag(filter.toString());
+
+        // Anonymous full/category listings are served from pre-serialized bytes when available
+        CatalogSnapshotService.Snapshot snapshot = snapshotService.get(filter);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = snapshot != null && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        // The gzip bytes are a different representation from the identity ones, so they need their own
+        // strong validator, and caches must key on Accept-Encoding (304s included)
+        if (gzip) etag = etag.substring(0, etag.length() - 1) + "-gz\"";
+        servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        if (snapshot != null) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache());
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(gzip ? snapshot.gzip() : snapshot.json());
+        }
+
+        try {
+            ProductProjection projection = ProductProjection.parse(filter.getFields());
+            Object body;
+            if (!filter.hasPagingOrFilters()) {
+                body = projection == null ? repository.findAll() : catalogService.findAll(projection);
+            } else {
+                body = projection == null ? catalogService.findPage(filter) : catalogService.findPage(filter, projection);
+            }
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Facet counts for the filter sidebar, e.g. /api/products/facets?mainCategory=Pens&color=Blue&color=Red
+     * Served from the in-memory facet index, never from Mongo.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<?> getFacets(@RequestParam MultiValueMap<String, String> params) {
+        return ResponseEntity.ok(facetIndex.query(params));
+    }
+
+    /**
+     * Full-text search over name, description, brandName and type, ranked with BM25.
+     * Supports "quoted phrases" and prefix* terms.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String q,
+                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        int size = Math.max(1, Math.min(limit, ProductCatalogService.MAX_LIMIT));
+        ProductSearchIndex.SearchHits hits = searchIndex.search(q, size);
+        if (hits.productIds().isEmpty()) {
+            return ResponseEntity.ok(new SearchResultDTO(hits.total(), List.of()));
+        }
+
+        // One round trip for the page, then restore the ranking order
+        List<String> ranked = hits.productIds();
+        List<Product> products = new ArrayList<>(repository.findAllById(ranked));
+        products.sort(Comparator.comparingInt(p -> ranked.indexOf(p.getId())));
+        return ResponseEntity.ok(new SearchResultDTO(hits.total(), products));
+    }
+
+    /**
+     * Typeahead for the search box. Answered entirely from memory.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam("q") String q,
+                                     @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return ResponseEntity.ok(suggestIndex.suggest(q, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable String id) {
-        Optional<Product> product = repository.findById(id);
+    public ResponseEntity<?> getById(@PathVariable String id,
+                                     @RequestParam(value = "fields", required = false) String fields,
+                                     WebRequest request) {
+        ProductProjection projection;
+        try {
+            projection = ProductProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        if (request.checkNotModified(versionService.productETag(id, projection == null ? null : projection.toString()))) {
+            return null;
+        }
+        if (projection != null) {
+            Optional<Map<String, Object>> projected = catalogService.findById(id, projection);
+            if (projected.isEmpty()) {
+                return ResponseEntity.status(404).body(Map.of("message", "Product not found"));
+            }
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(projected.get());
+        }
+        Optional<Product> product = productCache.findById(id);
         if (product.isEmpty()) {
             return ResponseEntity.status(404).body(java.util.Map.of("message", "Product not found"));
         }
-        return ResponseEntity.ok(product.get());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product.get());
     }
 
+    // The multipart body is parsed as a stream and written once; see StreamingUploadService
     @PostMapping(value = "/upload-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("message", "No file uploaded"));
+    public ResponseEntity<?> uploadImage(HttpServletRequest request) {
+        try {
+            // Stored under its content hash, so re-uploading the same photo reuses the file
+            UploadStore.Stored stored = uploadService.receive(request, UploadStore.Area.PRODUCTS);
+            imageMetadataService.recordUpload(stored);
+            return ResponseEntity.ok(Map.of("url", stored.url()));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of("message", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Upload failed: " + e.getMessage()));
         }
+    }
 
+    /**
+     * Bulk import from an NDJSON (application/x-ndjson) or CSV (text/csv) request body.
+     * The body is streamed and written in batches; the response is a per-row error report.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
         try {
-            // 1. Setup path: uploads/products/
-            String folder = "uploads/products/";
-            Path uploadPath = Paths.get(folder);
-            
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            // 2. Generate unique name
-            String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(filename);
-            
-            // 3. Save file
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // 4. Return the URL to the frontend
-            String imageUrl = "/products/" + filename;
-            return ResponseEntity.ok(Map.of("url", imageUrl));
-
+            boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+            ImportReportDTO report = csv
+                    ? importService.importCsv(request.getInputStream())
+                    : importService.importNdjson(request.getInputStream());
+            return ResponseEntity.ok(report);
         } catch (IOException e) {
-            return ResponseEntity.badRequest().body(Map.of("message", "Upload failed: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(Map.of("message", "Import failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk price/stock/discount update: [{ id, price?, discount?, stockQuantity? | stockDelta? }, ...].
+     * Applied in one unordered bulk write; each result says changed, unchanged, not_found or failed.
+     */
+    @PatchMapping("/bulk")
+    public ResponseEntity<?> bulkUpdate(@RequestBody List<BulkProductUpdateDTO> updates) {
+        try {
+            List<BulkUpdateResultDTO> results = bulkUpdateService.apply(updates);
+            Map<String, Long> counts = new HashMap<>();
+            results.forEach(r -> counts.merge(r.getResult(), 1L, Long::sum));
+            long changed = counts.getOrDefault(BulkUpdateResultDTO.CHANGED, 0L);
+            return ResponseEntity.ok(Map.of(
+                    "matched", changed + counts.getOrDefault(BulkUpdateResultDTO.UNCHANGED, 0L),
+                    "changed", changed,
+                    "notFound", counts.getOrDefault(BulkUpdateResultDTO.NOT_FOUND, 0L),
+                    "failed", counts.getOrDefault(BulkUpdateResultDTO.FAILED, 0L),
+                    "results", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
 
@@ -78,19 +272,21 @@ public class ProductController {
         // So we just need to validate and save
         
         // Auto-calculate status based on stock
-        if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
-            product.setStatus("In Stock");
-        } else {
-            product.setStatus("Out of stock");
-        }
+        product.setStatus(Product.statusFor(product.getStockQuantity()));
+        // Dimensions/placeholders recorded at upload time, never taken from the client
+        product.setImageMetadata(imageMetadataService.lookup(product.getImages(), true));
 
         Product savedProduct = repository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
         return ResponseEntity.ok(savedProduct);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable String id) {
+        Optional<Product> existing = repository.findById(id);
         repository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+        existing.ifPresent(p -> uploadStore.release(UploadStore.Area.PRODUCTS, p.getImages()));
         return ResponseEntity.ok().build();
     }
 
@@ -104,40 +300,51 @@ public class ProductController {
 
         Product existingProduct = existingProductOpt.get();
 
-        // 2. Update fields ONLY if they are not null in the incoming request
-        if (productUpdates.getName() != null) existingProduct.setName(productUpdates.getName());
-        if (productUpdates.getDescription() != null) existingProduct.setDescription(productUpdates.getDescription());
-        if (productUpdates.getMainCategory() != null) existingProduct.setMainCategory(productUpdates.getMainCategory());
-        if (productUpdates.getSubCategory() != null) existingProduct.setSubCategory(productUpdates.getSubCategory());
-        if (productUpdates.getType() != null) existingProduct.setType(productUpdates.getType());
-        if (productUpdates.getSize() != null) existingProduct.setSize(productUpdates.getSize());
-        if (productUpdates.getColor() != null) existingProduct.setColor(productUpdates.getColor());
-        if (productUpdates.getMaterial() != null) existingProduct.setMaterial(productUpdates.getMaterial());
-        if (productUpdates.getBrandName() != null) existingProduct.setBrandName(productUpdates.getBrandName());
-        if (productUpdates.getPrice() != null) existingProduct.setPrice(productUpdates.getPrice());
-        if (productUpdates.getDiscount() != null) existingProduct.setDiscount(productUpdates.getDiscount());
+        // 2. Set fields ONLY if they are not null in the incoming request. This is a targeted
+        // update, not a save of the copy read above: fields other writers keep on the document
+        // (stock decrements, pendingReservations tags, ledgerSeq) are left alone.
+        Update update = new Update();
+        if (productUpdates.getName() != null) update.set("name", productUpdates.getName());
+        if (productUpdates.getDescription() != null) update.set("description", productUpdates.getDescription());
+        if (productUpdates.getMainCategory() != null) update.set("mainCategory", productUpdates.getMainCategory());
+        if (productUpdates.getSubCategory() != null) update.set("subCategory", productUpdates.getSubCategory());
+        if (productUpdates.getType() != null) update.set("type", productUpdates.getType());
+        if (productUpdates.getSize() != null) update.set("size", productUpdates.getSize());
+        if (productUpdates.getColor() != null) update.set("color", productUpdates.getColor());
+        if (productUpdates.getMaterial() != null) update.set("material", productUpdates.getMaterial());
+        if (productUpdates.getBrandName() != null) update.set("brandName", productUpdates.getBrandName());
+        if (productUpdates.getPrice() != null) update.set("price", productUpdates.getPrice());
+        if (productUpdates.getDiscount() != null) update.set("discount", productUpdates.getDiscount());
         
         // Only update images if the client actually sent a new list
+        List<String> droppedImages = new ArrayList<>();
         if (productUpdates.getImages() != null && !productUpdates.getImages().isEmpty()) {
-            existingProduct.setImages(productUpdates.getImages());
+            droppedImages.addAll(existingProduct.getImages());
+            droppedImages.removeAll(productUpdates.getImages());
+            update.set("images", productUpdates.getImages());
+            update.set("imageMetadata", imageMetadataService.lookup(productUpdates.getImages(), true));
         }
 
         // 3. Special Logic: Stock & Status
         if (productUpdates.getStockQuantity() != null) {
-            existingProduct.setStockQuantity(productUpdates.getStockQuantity());
+            update.set("stockQuantity", productUpdates.getStockQuantity());
             // Recalculate status based on the NEW stock quantity
-            if (existingProduct.getStockQuantity() > 0) {
-                existingProduct.setStatus("In Stock");
-            } else {
-                existingProduct.setStatus("Out of stock");
-            }
+            update.set("status", Product.statusFor(productUpdates.getStockQuantity()));
         }
 
         // Note: We intentionally do NOT update 'averageRating' or 'reviewCount' here
         // so they preserve their existing values from the database.
+        if (update.getUpdateObject().isEmpty()) return ResponseEntity.ok(existingProduct);
 
-        // 4. Save the merged object
-        Product savedProduct = repository.save(existingProduct);
+        // 4. Apply the changes and return the stored result
+        Product savedProduct = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (savedProduct == null) {
+            return ResponseEntity.status(404).body(java.util.Map.of("message", "Product not found"));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
+        uploadStore.release(UploadStore.Area.PRODUCTS, droppedImages);
         return ResponseEntity.ok(savedProduct);
     }
 }
\ No newline at end of file
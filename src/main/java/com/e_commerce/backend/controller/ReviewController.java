@@ -2,10 +2,17 @@ package com.e_commerce.backend.controller;
 
 import com.e_commerce.backend.entity.Review;
 import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
 import com.e_commerce.backend.repository.ReviewRepository;
-import com.e_commerce.backend.repository.ProductRepository;
 import com.e_commerce.backend.security.JwtUtil;
+import com.e_commerce.backend.service.ProductCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,11 +30,17 @@ public class ReviewController {
     private ReviewRepository reviewRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ProductCacheService productCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Get all reviews for a product
     @GetMapping("/product/{productId}")
     public ResponseEntity<List<Review>> getReviewsByProduct(@PathVariable String productId) {
@@ -71,7 +84,7 @@ public class ReviewController {
             }
 
             // Verify product exists
-            Optional<Product> product = productRepository.findById(productId);
+            Optional<Product> product = productCache.findById(productId);
             if (product.isEmpty()) {
                 return ResponseEntity.status(404).body(Map.of("message", "Product not found"));
             }
@@ -164,27 +177,28 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
-    // Helper method to update product rating statistics
+    // Helper method to update product rating statistics. Only the two rating fields are written:
+    // a full save of a product read earlier would put back a stale stockQuantity and drop the
+    // pendingReservations tags a concurrent checkout may still need to roll back.
     private void updateProductRating(String productId) {
         List<Review> reviews = reviewRepository.findByProductId(productId);
-        Optional<Product> productOpt = productRepository.findById(productId);
-
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            
-            if (reviews.isEmpty()) {
-                product.setAverageRating(0.0);
-                product.setReviewCount(0);
-            } else {
-                double avgRating = reviews.stream()
-                        .mapToInt(Review::getRating)
-                        .average()
-                        .orElse(0.0);
-                product.setAverageRating(Math.round(avgRating * 10.0) / 10.0);
-                product.setReviewCount(reviews.size());
-            }
-            
-            productRepository.save(product);
+
+        double averageRating = 0.0;
+        if (!reviews.isEmpty()) {
+            double avgRating = reviews.stream()
+                    .mapToInt(Review::getRating)
+                    .average()
+                    .orElse(0.0);
+            averageRating = Math.round(avgRating * 10.0) / 10.0;
+        }
+
+        Product product = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(productId)),
+                new Update().set("averageRating", averageRating).set("reviewCount", reviews.size()),
+                FindAndModifyOptions.options().returnNew(true),
+                Product.class);
+        if (product != null) {
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
         }
     }
 }
@@ -2,6 +2,10 @@ package com.e_commerce.backend.controller;
 
 import com.e_commerce.backend.entity.User;
 import com.e_commerce.backend.repository.UserRepository;
+import com.e_commerce.backend.service.StreamingUploadService;
+import com.e_commerce.backend.service.UploadRejectedException;
+import com.e_commerce.backend.service.UploadStore;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -9,12 +13,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,6 +29,12 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UploadStore uploadStore;
+
+    @Autowired
+    private StreamingUploadService uploadService;
+
     private String getCurrentEmail() {
         if (SecurityContextHolder.getContext().getAuthentication() == null) return null;
         return SecurityContextHolder.getContext().getAuthentication().getName();
@@ -134,40 +141,27 @@ public class UserController {
     }
 
     @PostMapping(value = "/me/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> uploadAvatar(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadAvatar(HttpServletRequest request) {
         String email = getCurrentEmail();
         if (email == null) return ResponseEntity.status(401).body(Map.of("message", "Unauthorized"));
         User user = userRepository.findByEmail(email).orElse(null);
         if (user == null) return ResponseEntity.status(404).body(Map.of("message", "User not found"));
 
-        if (file == null || file.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("message", "No file uploaded"));
-        }
-
         try {
-            // Store uploaded avatars in a consistent, absolute runtime-writable folder
-            Path uploadDir = Paths.get("uploads", "avatars").toAbsolutePath();
-            Files.createDirectories(uploadDir);
-
-            String original = file.getOriginalFilename();
-            String filename = System.currentTimeMillis() + "-" + (original != null ? original.replaceAll("[^a-zA-Z0-9.\\-]", "_") : "avatar.jpg");
-            Path target = uploadDir.resolve(filename);
-
-            // Ensure parent directories exist before writing
-            Files.createDirectories(target.getParent());
-
-            // Use Files.copy with the MultipartFile input stream for a reliable write
-            try (java.io.InputStream in = file.getInputStream()) {
-                java.nio.file.Files.copy(in, target);
+            // Streamed from the multipart body; identical avatars share one file under uploads/avatars
+            UploadStore.Stored stored = uploadService.receive(request, UploadStore.Area.AVATARS);
+
+            // Store relative public URL in DB (frontend will resolve to backend base when displaying)
+            String previousUrl = user.getAvatarUrl();
+            user.setAvatarUrl(stored.url());
+            userRepository.save(user);
+            if (previousUrl != null && !previousUrl.equals(stored.url())) {
+                uploadStore.release(UploadStore.Area.AVATARS, List.of(previousUrl));
             }
 
-                // Store relative public URL in DB (frontend will resolve to backend base when displaying)
-                String relativeUrl = "/avatars/" + filename;
-
-                user.setAvatarUrl(relativeUrl);
-                userRepository.save(user);
-
-                return ResponseEntity.ok(Map.of("avatarUrl", relativeUrl));
+            return ResponseEntity.ok(Map.of("avatarUrl", stored.url()));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of("message", e.getMessage()));
         } catch (IOException e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("message", "Failed to save file"));
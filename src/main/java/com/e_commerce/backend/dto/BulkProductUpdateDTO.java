@@ -0,0 +1,16 @@
+package com.e_commerce.backend.dto;
+
+import lombok.Data;
+
+/**
+ * One entry of a bulk price/stock/discount update. Null fields are left untouched.
+ * stockQuantity sets the stock, stockDelta adjusts it (e.g. -3); send one or the other.
+ */
+@Data
+public class BulkProductUpdateDTO {
+    private String id;
+    private Double price;
+    private Double discount;
+    private Integer stockQuantity;
+    private Integer stockDelta;
+}
@@ -0,0 +1,19 @@
+package com.e_commerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateResultDTO {
+    public static final String CHANGED = "changed";
+    public static final String UNCHANGED = "unchanged"; // matched, values already as requested
+    public static final String NOT_FOUND = "not_found";
+    public static final String FAILED = "failed";
+
+    private String id;
+    private String result;
+    private String message;
+}
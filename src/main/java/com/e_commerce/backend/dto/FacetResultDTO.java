@@ -0,0 +1,15 @@
+package com.e_commerce.backend.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetResultDTO {
+    private long total; // products matching every selected facet
+    private Map<String, Map<String, Integer>> facets; // facet -> value -> product count
+}
@@ -0,0 +1,28 @@
+package com.e_commerce.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+public class ImportReportDTO {
+    private int rows;
+    private int inserted;
+    private int upserted; // rows that carried an id and updated or created that product
+    private int failed;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row; // 1-based data row (CSV header not counted)
+        private String message;
+    }
+}
@@ -0,0 +1,18 @@
+package com.e_commerce.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.e_commerce.backend.enums.OrderStatus;
+
+import lombok.Data;
+
+// One row of the order history; GET /api/orders/{id} has the full order
+@Data
+public class OrderSummaryDTO {
+    private String id;
+    private Double total;
+    private OrderStatus status;
+    private Integer itemCount;
+    private String firstImage;
+    private LocalDateTime createdAt;
+}
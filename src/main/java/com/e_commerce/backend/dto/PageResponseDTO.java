@@ -0,0 +1,15 @@
+package com.e_commerce.backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponseDTO<T> {
+    private List<T> items;
+    private String nextCursor; // null when there are no more pages
+}
@@ -0,0 +1,29 @@
+package com.e_commerce.backend.dto;
+
+import lombok.Data;
+
+/**
+ * Query parameters accepted by the paginated catalog listing (GET /api/products).
+ */
+@Data
+public class ProductFilterDTO {
+    private String mainCategory;
+    private String subCategory;
+    private String brandName;
+    private Double minPrice;
+    private Double maxPrice;
+    private String status;
+    private String sort;   // newest (default), price_asc, price_desc, rating
+    private String cursor; // opaque token returned as nextCursor by the previous page
+    private Integer limit;
+    private String fields; // sparse fieldset, e.g. "name,price" or the "card" preset
+
+    /**
+     * True when the caller asked for any filtering or paging; otherwise the legacy full list is returned.
+     */
+    public boolean hasPagingOrFilters() {
+        return mainCategory != null || subCategory != null || brandName != null
+                || minPrice != null || maxPrice != null || status != null
+                || sort != null || cursor != null || limit != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.e_commerce.backend.dto;
+
+import java.util.List;
+
+import com.e_commerce.backend.entity.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDTO {
+    private int total; // all matching products, not just the returned ones
+    private List<Product> items; // best match first
+}
@@ -0,0 +1,14 @@
+package com.e_commerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    private String type;      // product, brand or category
+    private String productId; // only set for product suggestions
+}
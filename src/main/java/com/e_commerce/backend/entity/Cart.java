@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -34,5 +35,15 @@ public class Cart {
         private Double price;
         private Integer quantity;
         private List<String> images = new ArrayList<>();
+
+        // Filled in on GET /api/cart from the current product, never stored
+        @Transient
+        private Boolean priceChanged;
+        @Transient
+        private Double previousPrice; // the price stored on the line, when it differs from the current one
+        @Transient
+        private Boolean inStock;      // enough stock for this line's quantity
+        @Transient
+        private Integer availableStock;
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.e_commerce.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+// The outcome of a request sent with an Idempotency-Key, replayed when the key is sent again
+@Data
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    private String id; // "<user>:<key>"
+
+    private String status;
+    private String fingerprint;      // SHA-256 of the request body; a reused key must send the same request
+    private LocalDateTime lockedUntil; // an IN_PROGRESS record past this was abandoned and can be taken over
+    private Integer responseStatus;
+    private Object responseBody;
+
+    @Indexed(expireAfter = "24h") // longer than any client keeps retrying
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,32 @@
+package com.e_commerce.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+// Computed once per uploaded image; uploads are content-addressed, so the URL identifies the bytes
+@Data
+@Document(collection = "image_metadata")
+public class ImageMetadata {
+    @Id
+    private String url;
+
+    private Integer width;
+    private Integer height;
+    private String dominantColor; // "#rrggbb"
+    private String placeholder;   // BlurHash
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public Product.ImageInfo toImageInfo() {
+        Product.ImageInfo info = new Product.ImageInfo();
+        info.setUrl(url);
+        info.setWidth(width);
+        info.setHeight(height);
+        info.setDominantColor(dominantColor);
+        info.setPlaceholder(placeholder);
+        return info;
+    }
+}
@@ -0,0 +1,24 @@
+package com.e_commerce.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+// One stock movement of a hot SKU (see HotInventoryEngine); written once, later marked applied
+@Data
+@Document(collection = "inventory_ledger")
+@CompoundIndex(name = "applied_seq", def = "{'applied': 1, 'seq': 1}")
+public class InventoryLedgerEntry {
+    @Id
+    private String id;
+
+    private long seq;         // flush batch; products remember the last batch applied to them
+    private String productId;
+    private int delta;        // negative for a reservation, positive for a release
+    private boolean applied;
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.e_commerce.backend.enums.OrderStatus;
@@ -17,6 +18,8 @@ import lombok.Data;
 
 @Data
 @Document(collection = "orders")
+// Order history: a user's orders newest first, _id breaking ties for the page cursor
+@CompoundIndex(name = "user_created", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 public class Order {
     @Id
     private String id;
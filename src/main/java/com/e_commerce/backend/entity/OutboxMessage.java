@@ -0,0 +1,40 @@
+package com.e_commerce.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+// Follow-up work for an order, done by OutboxService after checkout has answered
+@Data
+@Document(collection = "outbox")
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class OutboxMessage {
+    public static final String ORDER_CONFIRMATION = "ORDER_CONFIRMATION";
+    public static final String LOW_STOCK_CHECK = "LOW_STOCK_CHECK";
+
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";       // gave up after outbox.max-attempts
+    public static final String DISCARDED = "DISCARDED"; // the order was never stored
+
+    @Id
+    private String id;
+
+    private String type;
+    private String orderId;
+    private String status = PENDING;
+    private int attempts;
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+    private LocalDateTime lockedUntil;
+    private String lastError;
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Indexed(expireAfter = "7d") // only set once handled, so pending messages never expire
+    private LocalDateTime processedAt;
+}
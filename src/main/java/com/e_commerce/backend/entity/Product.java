@@ -4,12 +4,28 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
 @Data
 @Document(collection = "products")
+// Indexes backing the keyset-paginated catalog listing (equality filters first, then the sort key, then _id)
+@CompoundIndexes({
+    @CompoundIndex(name = "category_price", def = "{'mainCategory': 1, 'subCategory': 1, 'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "category_rating", def = "{'mainCategory': 1, 'subCategory': 1, 'averageRating': -1, '_id': -1}"),
+    @CompoundIndex(name = "category_newest", def = "{'mainCategory': 1, 'subCategory': 1, '_id': -1}"),
+    @CompoundIndex(name = "brand_price", def = "{'brandName': 1, 'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "status_price", def = "{'status': 1, 'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "price", def = "{'price': 1, '_id': 1}"),
+    @CompoundIndex(name = "rating", def = "{'averageRating': -1, '_id': -1}")
+})
 public class Product {
+    public static final String IN_STOCK = "In Stock";
+    public static final String OUT_OF_STOCK = "Out of stock";
+
     @Id
     private String id; 
     private String name;
@@ -24,8 +40,25 @@ public class Product {
     private Integer stockQuantity;
     private Double price;
     private Double discount;
+    @Indexed // upload cleanup asks whether any product still uses an image URL
     private List<String> images = new ArrayList<>();
     private String status;
     private Double averageRating;
     private Integer reviewCount;
-}
\ No newline at end of file
+    // One entry per image in `images` (same order, null when unknown), so clients can reserve space and show a placeholder
+    private List<ImageInfo> imageMetadata = new ArrayList<>();
+
+    // Status is derived from stock everywhere a product is written
+    public static String statusFor(Integer stockQuantity) {
+        return stockQuantity != null && stockQuantity > 0 ? IN_STOCK : OUT_OF_STOCK;
+    }
+
+    @Data
+    public static class ImageInfo {
+        private String url;
+        private Integer width;
+        private Integer height;
+        private String dominantColor;
+        private String placeholder;
+    }
+}
@@ -0,0 +1,33 @@
+package com.e_commerce.backend.event;
+
+import com.e_commerce.backend.entity.Product;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published after products are written or deleted so in-process indexes and caches can follow along.
+ * `saved` holds the state of the products as persisted; `deletedIds` the ids that no longer exist.
+ */
+public record ProductChangedEvent(List<Product> saved, List<String> deletedIds) {
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(List.of(product), List.of());
+    }
+
+    public static ProductChangedEvent saved(List<Product> products) {
+        return new ProductChangedEvent(List.copyOf(products), List.of());
+    }
+
+    public static ProductChangedEvent deleted(String productId) {
+        return new ProductChangedEvent(List.of(), List.of(productId));
+    }
+
+    public Set<String> productIds() {
+        Set<String> ids = new LinkedHashSet<>();
+        saved.forEach(p -> ids.add(p.getId()));
+        ids.addAll(deletedIds);
+        return ids;
+    }
+}
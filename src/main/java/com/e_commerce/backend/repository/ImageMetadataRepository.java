@@ -0,0 +1,9 @@
+package com.e_commerce.backend.repository;
+
+import com.e_commerce.backend.entity.ImageMetadata;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageMetadataRepository extends MongoRepository<ImageMetadata, String> {
+}
@@ -0,0 +1,58 @@
+package com.e_commerce.backend.service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decodes uploaded images without trusting their size. The dimensions are read from the
+ * header first; images over MAX_PIXELS are refused, and the rest are decoded subsampled down
+ * to roughly the resolution the caller needs, so a small file claiming a huge canvas can't
+ * exhaust the heap.
+ */
+final class BoundedImageReader {
+
+    // 8K x 6K; a full decode of that is ~200 MB as INT_RGB, which we never do
+    static final long MAX_PIXELS = 50_000_000L;
+
+    /**
+     * `image` may be smaller than `width` x `height`, which are the original's.
+     */
+    record Decoded(BufferedImage image, int width, int height) {
+    }
+
+    private BoundedImageReader() {
+    }
+
+    /**
+     * Decodes `file` at a whole-number subsampling that keeps it at least `minWidth` x `minHeight`
+     * (or full size if it is smaller). Returns null for formats ImageIO has no reader for (e.g. WebP).
+     */
+    static Decoded read(Path file, int minWidth, int minHeight) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image is " + width + "x" + height + ", over the " + MAX_PIXELS + " pixel limit");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / Math.max(1, minWidth), height / Math.max(1, minHeight)));
+                if (step > 1) param.setSourceSubsampling(step, step, 0, 0);
+                return new Decoded(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
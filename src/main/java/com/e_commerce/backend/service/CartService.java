@@ -0,0 +1,209 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.CartRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cart mutations as single atomic updates on the cart document ($inc on the matched line,
+ * $push with upsert, $pull, $set), each returning the updated cart via findAndModify.
+ * Concurrent requests for the same user (two tabs, double clicks) can no longer overwrite
+ * each other's changes the way load-modify-save did.
+ *
+ * Carts are created by the first add and deleted once their last line is gone; abandoned
+ * carts expire through the TTL index on updatedAt (see MongoIndexConfig).
+ *
+ * With cart.write-behind.enabled the same operations go to CartWriteBehindBuffer instead,
+ * which applies them in memory and writes coalesced results to Mongo.
+ */
+@Service
+public class CartService {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+    private static final FindAndModifyOptions UPSERT_RETURN_NEW = FindAndModifyOptions.options().returnNew(true).upsert(true);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartWriteBehindBuffer writeBehind;
+
+    @Autowired
+    private ProductCacheService productCache;
+
+    public Optional<Cart> getCart(String userId) {
+        if (writeBehind.isEnabled()) return Optional.ofNullable(writeBehind.read(userId));
+        return cartRepository.findByUserId(userId);
+    }
+
+    /**
+     * Re-prices every line from the current product and annotates availability, with one
+     * (cached) product lookup for the whole cart. Only the returned object changes; the stored
+     * cart keeps its snapshot.
+     */
+    public Cart enrich(Cart cart) {
+        List<String> productIds = cart.getItems().stream().map(Cart.CartItem::getProductId).distinct().toList();
+        Map<String, Product> products = new HashMap<>();
+        productCache.findAllById(productIds).forEach(p -> products.put(p.getId(), p));
+
+        for (Cart.CartItem item : cart.getItems()) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                // Deleted from the catalog since it was added
+                item.setPriceChanged(false);
+                item.setInStock(false);
+                item.setAvailableStock(0);
+                continue;
+            }
+            Double storedPrice = item.getPrice();
+            boolean changed = product.getPrice() != null && !product.getPrice().equals(storedPrice);
+            item.setPriceChanged(changed);
+            item.setPreviousPrice(changed ? storedPrice : null);
+            if (product.getPrice() != null) item.setPrice(product.getPrice());
+            if (product.getName() != null) item.setName(product.getName());
+            if (product.getAverageRating() != null) item.setRating(product.getAverageRating());
+            if (product.getImages() != null && !product.getImages().isEmpty()) item.setImages(new ArrayList<>(product.getImages()));
+
+            int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+            int quantity = item.getQuantity() == null ? 0 : item.getQuantity();
+            item.setAvailableStock(stock);
+            item.setInStock(stock > 0 && stock >= quantity);
+        }
+        return cart;
+    }
+
+    /**
+     * Makes sure Mongo holds the user's latest cart (a no-op unless write-behind is on).
+     * Call before reading carts straight from the repository, e.g. at checkout.
+     */
+    public boolean flush(String userId) {
+        return writeBehind.isEnabled() && writeBehind.flush(userId);
+    }
+
+    /**
+     * Adds `item` to the user's cart, or increases the quantity of the line already holding
+     * that product. Creates the cart if needed.
+     */
+    public Cart addItem(String userId, Cart.CartItem item) {
+        if (item.getProductId() == null) throw new IllegalArgumentException("productId is required");
+        if (item.getQuantity() == null) item.setQuantity(1);
+        if (item.getQuantity() <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (writeBehind.isEnabled()) {
+            return writeBehind.mutate(userId, cart -> {
+                Optional<Cart.CartItem> line = findLine(cart, item.getProductId());
+                if (line.isPresent()) line.get().setQuantity(line.get().getQuantity() + item.getQuantity());
+                else cart.getItems().add(item);
+                return true;
+            });
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+
+            // 1. Line exists: bump it in place
+            Cart cart = mongoTemplate.findAndModify(
+                    lineQuery(userId, item.getProductId()),
+                    new Update().inc("items.$.quantity", item.getQuantity()).set("updatedAt", now),
+                    RETURN_NEW, Cart.class);
+            if (cart != null) return cart;
+
+            // 2. No such line: append it, creating the cart if there is none
+            Query withoutLine = new Query(Criteria.where("userId").is(userId).and("items.productId").ne(item.getProductId()));
+            try {
+                return mongoTemplate.findAndModify(
+                        withoutLine,
+                        new Update().push("items", item).set("updatedAt", now).setOnInsert("createdAt", now),
+                        UPSERT_RETURN_NEW, Cart.class);
+            } catch (DuplicateKeyException e) {
+                // The cart exists and another request added this product in between (so the query
+                // matched nothing and the upsert hit the unique userId index): bump it instead
+            }
+        }
+        throw new IllegalStateException("Cart update kept conflicting, try again");
+    }
+
+    /**
+     * Sets the quantity of a line; a quantity of 0 or less removes it. Empty if no such line.
+     */
+    public Optional<Cart> updateQuantity(String userId, String productId, int quantity) {
+        if (quantity <= 0) return removeItem(userId, productId);
+        if (writeBehind.isEnabled()) {
+            return Optional.ofNullable(writeBehind.mutate(userId, cart -> {
+                Optional<Cart.CartItem> line = findLine(cart, productId);
+                line.ifPresent(i -> i.setQuantity(quantity));
+                return line.isPresent();
+            }));
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                lineQuery(userId, productId),
+                new Update().set("items.$.quantity", quantity).set("updatedAt", LocalDateTime.now()),
+                RETURN_NEW, Cart.class));
+    }
+
+    /**
+     * Removes a line. Empty if the cart has no such line.
+     */
+    public Optional<Cart> removeItem(String userId, String productId) {
+        if (writeBehind.isEnabled()) {
+            return Optional.ofNullable(writeBehind.mutate(userId, cart -> cart.getItems().removeIf(i -> productId.equals(i.getProductId()))));
+        }
+        Cart cart = mongoTemplate.findAndModify(
+                lineQuery(userId, productId),
+                new Update().pull("items", new Document("productId", productId))
+                        .set("updatedAt", LocalDateTime.now()),
+                RETURN_NEW, Cart.class);
+        if (cart != null && cart.getItems().isEmpty()) deleteIfEmpty(userId);
+        return Optional.ofNullable(cart);
+    }
+
+    public void clear(String userId) {
+        if (writeBehind.isEnabled()) {
+            // Checkout clears the cart; write it through so the next order can't see old lines
+            writeBehind.mutate(userId, cart -> {
+                cart.getItems().clear();
+                return true;
+            });
+            writeBehind.flush(userId);
+            return;
+        }
+        mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), Cart.class);
+    }
+
+    // Carts exist only while they hold items; the size check keeps a concurrent add safe
+    private void deleteIfEmpty(String userId) {
+        mongoTemplate.remove(new Query(Criteria.where("userId").is(userId).and("items").size(0)), Cart.class);
+    }
+
+    public boolean cartExists(String userId) {
+        if (writeBehind.isEnabled()) return writeBehind.read(userId) != null;
+        return mongoTemplate.exists(new Query(Criteria.where("userId").is(userId)), Cart.class);
+    }
+
+    private static Optional<Cart.CartItem> findLine(Cart cart, String productId) {
+        return cart.getItems().stream().filter(i -> productId.equals(i.getProductId())).findFirst();
+    }
+
+    private static Query lineQuery(String userId, String productId) {
+        return new Query(Criteria.where("userId").is(userId).and("items.productId").is(productId));
+    }
+}
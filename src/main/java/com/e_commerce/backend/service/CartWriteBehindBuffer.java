@@ -0,0 +1,221 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind mode for carts (cart.write-behind.enabled=true).
+ *
+ * Each user's cart is held in memory while it is being edited. Mutations change that copy
+ * under a per-user lock and mark it dirty; a background task writes dirty carts to Mongo every
+ * cart.write-behind.flush-interval, so a burst of quantity-stepper clicks costs one write.
+ * Checkout flushes the user's cart first, and everything is flushed on shutdown.
+ *
+ * The in-memory copy is authoritative while it exists, so this mode assumes a single
+ * instance (or sticky sessions); that is why it is off by default.
+ */
+@Service
+public class CartWriteBehindBuffer {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.write-behind.flush-interval:2s}")
+    private Duration flushInterval;
+
+    // Clean carts untouched for this long are dropped from memory
+    @Value("${cart.write-behind.idle-eviction:5m}")
+    private Duration idleEviction;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private ScheduledExecutorService flusher;
+
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        Cart cart;          // null until loaded
+        boolean persisted;  // a document exists in Mongo
+        boolean dirty;
+        boolean evicted;
+        long lastAccess = System.nanoTime();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cart-write-behind").daemon().factory());
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushDirty, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        flushDirty();
+        System.out.println("Cart write-behind: " + mutations.get() + " mutations, " + writes.get() + " Mongo writes");
+    }
+
+    /**
+     * A copy of the user's current cart, or null if they have none.
+     */
+    public Cart read(String userId) {
+        return withEntry(userId, entry -> entry.persisted || entry.dirty ? copy(entry.cart) : null);
+    }
+
+    /**
+     * Applies `mutation` to the user's cart (created in memory if missing) and returns a copy of
+     * the result, or null when the mutation reports it changed nothing (e.g. unknown line).
+     */
+    public Cart mutate(String userId, Function<Cart, Boolean> mutation) {
+        return withEntry(userId, entry -> {
+            if (!mutation.apply(entry.cart)) return null;
+            entry.cart.setUpdatedAt(LocalDateTime.now());
+            entry.dirty = true;
+            mutations.incrementAndGet();
+            return copy(entry.cart);
+        });
+    }
+
+    /**
+     * Writes the user's cart now if it has unflushed changes; true if something was written.
+     */
+    public boolean flush(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) return false;
+        entry.lock.lock();
+        try {
+            return write(userId, entry);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    void flushDirty() {
+        long idleNanos = idleEviction.toNanos();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            entry.lock.lock();
+            try {
+                write(e.getKey(), entry);
+                if (System.nanoTime() - entry.lastAccess > idleNanos) {
+                    entry.evicted = true;
+                    entries.remove(e.getKey(), entry);
+                }
+            } catch (RuntimeException ex) {
+                // stays dirty; retried on the next run
+                System.out.println("Could not flush cart of " + e.getKey() + ": " + ex.getMessage());
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private <T> T withEntry(String userId, Function<Entry, T> action) {
+        while (true) {
+            Entry entry = entries.computeIfAbsent(userId, id -> new Entry());
+            entry.lock.lock();
+            try {
+                if (entry.evicted) continue; // lost a race with eviction; take the fresh entry
+                if (entry.cart == null) load(userId, entry); // under the user's lock, not the map's
+                entry.lastAccess = System.nanoTime();
+                return action.apply(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private void load(String userId, Entry entry) {
+        Cart cart = cartRepository.findByUserId(userId).orElse(null);
+        entry.persisted = cart != null;
+        if (cart == null) {
+            cart = new Cart();
+            cart.setUserId(userId);
+        }
+        entry.cart = cart;
+    }
+
+    // Caller holds the entry lock
+    private boolean write(String userId, Entry entry) {
+        if (!entry.dirty) return false;
+        Cart cart = entry.cart;
+        if (cart.getItems().isEmpty()) {
+            // Empty carts are not kept (see CartService)
+            mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), Cart.class);
+            cart.setId(null);
+            entry.persisted = false;
+            entry.dirty = false;
+            writes.incrementAndGet();
+            return true;
+        }
+        Update update = new Update()
+                .set("items", cart.getItems())
+                .set("updatedAt", cart.getUpdatedAt())
+                .setOnInsert("createdAt", cart.getCreatedAt());
+        mongoTemplate.upsert(new Query(Criteria.where("userId").is(userId)), update, Cart.class);
+        if (!entry.persisted) {
+            cartRepository.findByUserId(userId).ifPresent(saved -> cart.setId(saved.getId()));
+            entry.persisted = true;
+        }
+        entry.dirty = false;
+        writes.incrementAndGet();
+        return true;
+    }
+
+    private static Cart copy(Cart cart) {
+        Cart copy = new Cart();
+        copy.setId(cart.getId());
+        copy.setUserId(cart.getUserId());
+        copy.setCreatedAt(cart.getCreatedAt());
+        copy.setUpdatedAt(cart.getUpdatedAt());
+        ArrayList<Cart.CartItem> items = new ArrayList<>(cart.getItems().size());
+        for (Cart.CartItem item : cart.getItems()) {
+            Cart.CartItem c = new Cart.CartItem();
+            c.setProductId(item.getProductId());
+            c.setName(item.getName());
+            c.setItemNo(item.getItemNo());
+            c.setBrand(item.getBrand());
+            c.setColor(item.getColor());
+            c.setRating(item.getRating());
+            c.setPrice(item.getPrice());
+            c.setQuantity(item.getQuantity());
+            c.setImages(item.getImages() == null ? new ArrayList<>() : new ArrayList<>(item.getImages()));
+            items.add(c);
+        }
+        copy.setItems(items);
+        return copy;
+    }
+}
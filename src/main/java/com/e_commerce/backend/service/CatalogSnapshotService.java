@@ -0,0 +1,156 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.ProductFilterDTO;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized, pre-gzipped bytes for the anonymous catalog listings:
+ * the full list (GET /api/products) and the first page of each category (?mainCategory=X).
+ *
+ * Snapshots are dropped as soon as a product changes and rebuilt on a background thread;
+ * until the rebuild lands, requests take the normal query path. A served snapshot is
+ * therefore never older than the catalog.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final String FULL_CATALOG = "";
+    private static final String CATEGORY = "mainCategory";
+    private static final int MAX_SNAPSHOTS = 256; // a backstop; only categories that exist are admitted
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCatalogService catalogService;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> wanted = ConcurrentHashMap.newKeySet(); // requested listings of existing categories
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("catalog-snapshot").factory());
+
+    public record Snapshot(byte[] json, byte[] gzip, long generation) {
+    }
+
+    /**
+     * The snapshot for this listing, or null if the request is not a snapshotted listing
+     * or the snapshot is still being rebuilt.
+     */
+    public Snapshot get(ProductFilterDTO filter) {
+        String key = keyFor(filter);
+        if (key == null) return null;
+
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.generation() != generation.get()) {
+            snapshot = null; // built before the latest write
+        }
+        // Category names come from clients: only ones the catalog actually has earn a snapshot
+        if (snapshot == null && wanted.size() < MAX_SNAPSHOTS && exists(key) && wanted.add(key)) {
+            scheduleRebuild();
+        }
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        wanted.add(FULL_CATALOG);
+        scheduleRebuild();
+    }
+
+    // Runs before ProductVersionService bumps the catalog version, so a stale snapshot is never
+    // served under the new ETag
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        snapshots.clear();
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // Coalesces bursts of writes into one rebuild
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        long startGeneration = generation.get();
+        // Categories whose last product went away stop being rebuilt on every write
+        wanted.removeIf(key -> !exists(key));
+        for (String key : wanted) {
+            try {
+                Object body = FULL_CATALOG.equals(key) ? productRepository.findAll() : catalogService.queryPage(categoryFilter(key));
+                byte[] json = jsonMapper.writeValueAsBytes(body);
+                Snapshot snapshot = new Snapshot(json, gzip(json), startGeneration);
+                if (generation.get() != startGeneration) return; // a newer rebuild is already queued
+                snapshots.put(key, snapshot);
+            } catch (RuntimeException e) {
+                System.out.println("Could not build catalog snapshot '" + key + "': " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean exists(String key) {
+        return FULL_CATALOG.equals(key) || facetIndex.contains(CATEGORY, key);
+    }
+
+    private static String keyFor(ProductFilterDTO filter) {
+        boolean onlyCategory = filter.getSubCategory() == null && filter.getBrandName() == null
+                && filter.getMinPrice() == null && filter.getMaxPrice() == null && filter.getStatus() == null
+                && filter.getSort() == null && filter.getCursor() == null && filter.getLimit() == null
+                && filter.getFields() == null;
+        if (!onlyCategory) return null;
+        return filter.getMainCategory() == null ? FULL_CATALOG : filter.getMainCategory();
+    }
+
+    private static ProductFilterDTO categoryFilter(String mainCategory) {
+        ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setMainCategory(mainCategory);
+        return filter;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
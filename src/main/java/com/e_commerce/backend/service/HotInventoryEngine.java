@@ -0,0 +1,329 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.InventoryLedgerEntry;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stock for flash-sale SKUs (inventory.hot-skus=id1,id2,...).
+ *
+ * Thousands of checkouts per second on one product all contend on the same Mongo document.
+ * For the configured SKUs the available stock lives in an AtomicInteger instead, and a
+ * reservation is a compare-and-set on it. Every reservation/release is appended to
+ * inventory_ledger by a background writer every inventory.hot.flush-interval, which then
+ * applies each flushed batch to the products with one $inc per SKU (guarded by the batch
+ * sequence stored on the product, so applying a batch twice is a no-op).
+ *
+ * At startup batches the previous run wrote but did not apply are replayed before the
+ * counters are loaded. Movements still queued in memory when the process dies are lost, so
+ * keep the flush interval short. Applied rows are deleted once a later batch is applied; the
+ * latest batch stays so the next run continues its sequence. Stock edited elsewhere (admin,
+ * bulk update) reaches the counters through ProductChangedEvent: the writer re-reads those
+ * SKUs and folds the difference in. Other writers must therefore use targeted updates that
+ * leave ledgerSeq alone. Like cart write-behind this assumes one instance; SKUs not
+ * configured go through InventoryService's conditional Mongo updates as before.
+ */
+@Service
+public class HotInventoryEngine {
+
+    private static final int MAX_BATCH = 5000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.hot-skus:}")
+    private String hotSkus;
+
+    @Value("${inventory.hot.flush-interval:50ms}")
+    private Duration flushInterval;
+
+    private final Map<String, Sku> skus = new ConcurrentHashMap<>();
+    private final Queue<InventoryLedgerEntry> queue = new ConcurrentLinkedQueue<>();
+    private final Set<String> changedElsewhere = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private volatile ScheduledExecutorService writer; // started by the first track()
+
+    // Writer thread only
+    private long nextSeq;
+    private List<InventoryLedgerEntry> failedBatch;
+    private boolean unapplied;
+
+    private static final class Sku {
+        final AtomicInteger available;
+        int persisted; // stock Mongo holds once every flushed batch is applied; writer thread only
+
+        Sku(int stock) {
+            this.available = new AtomicInteger(stock);
+            this.persisted = stock;
+        }
+
+        boolean tryTake(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) return false;
+                if (available.compareAndSet(current, current - quantity)) return true;
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Set<String> configured = Arrays.stream(hotSkus.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        if (configured.isEmpty()) return;
+
+        track(configured);
+        System.out.println("Hot inventory: tracking " + skus.size() + " of " + configured.size() + " configured SKUs");
+    }
+
+    // The ledger writer runs only once there is something to track
+    private synchronized void startWriter() {
+        if (writer != null) return;
+        InventoryLedgerEntry last = mongoTemplate.findOne(
+                new Query().with(Sort.by(Sort.Direction.DESC, "seq")).limit(1), InventoryLedgerEntry.class);
+        nextSeq = last == null ? 1 : last.getSeq() + 1;
+        applyUnapplied(); // reconcile what the previous run flushed but did not apply
+
+        writer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("hot-inventory-writer").daemon().factory());
+        long interval = flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (writer == null) return;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (!queue.isEmpty() || failedBatch != null) {
+            if (!flush()) break;
+        }
+        System.out.println("Hot inventory: " + reservations.get() + " reservations, " + rejections.get() + " rejected");
+    }
+
+    public boolean isHot(String productId) {
+        return skus.containsKey(productId);
+    }
+
+    /**
+     * Takes all `lines` (productId -> quantity, all hot) or none. Returns the ids that were
+     * short; empty on success.
+     */
+    public List<String> tryReserve(Map<String, Integer> lines) {
+        List<String> failed = new ArrayList<>();
+        Map<Sku, Integer> taken = new LinkedHashMap<>();
+        lines.forEach((id, quantity) -> {
+            Sku sku = skus.get(id);
+            if (sku != null && sku.tryTake(quantity)) taken.put(sku, quantity);
+            else failed.add(id);
+        });
+        if (!failed.isEmpty()) {
+            taken.forEach((sku, quantity) -> sku.available.addAndGet(quantity)); // never left memory
+            rejections.incrementAndGet();
+            return failed;
+        }
+        lines.forEach((id, quantity) -> append(id, -quantity));
+        reservations.incrementAndGet();
+        return failed;
+    }
+
+    /**
+     * Gives back what `tryReserve` took.
+     */
+    public void release(Map<String, Integer> lines) {
+        lines.forEach((id, quantity) -> {
+            Sku sku = skus.get(id);
+            if (sku != null) sku.available.addAndGet(quantity);
+            append(id, quantity);
+        });
+    }
+
+    /**
+     * Stock currently available in memory, or null for SKUs that are not hot.
+     */
+    public Integer available(String productId) {
+        Sku sku = skus.get(productId);
+        return sku == null ? null : sku.available.get();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        event.deletedIds().forEach(skus::remove);
+        for (Product product : event.saved()) {
+            // The event's copy may have been read before our latest batch was applied, so its
+            // stock can't be compared with `persisted`; the writer re-reads it instead
+            if (skus.containsKey(product.getId())) changedElsewhere.add(product.getId());
+        }
+    }
+
+    // Loads counters for `productIds` from Mongo, starting the writer if needed; ids without a
+    // product are skipped
+    void track(Collection<String> productIds) {
+        startWriter();
+        Query query = new Query(Criteria.where("id").in(productIds));
+        query.fields().include("stockQuantity");
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            skus.put(product.getId(), new Sku(product.getStockQuantity() == null ? 0 : product.getStockQuantity()));
+        }
+    }
+
+    // Runs a flush on the writer thread and waits for it (tests, benchmarks)
+    void flushNow() throws InterruptedException, ExecutionException {
+        writer.submit(this::flush).get();
+    }
+
+    private void append(String productId, int delta) {
+        InventoryLedgerEntry entry = new InventoryLedgerEntry();
+        entry.setProductId(productId);
+        entry.setDelta(delta);
+        queue.add(entry);
+    }
+
+    // One ledger batch: insert, then apply; false if Mongo could not be reached
+    private boolean flush() {
+        try {
+            List<InventoryLedgerEntry> batch = failedBatch;
+            if (batch == null) {
+                batch = new ArrayList<>();
+                InventoryLedgerEntry entry;
+                while (batch.size() < MAX_BATCH && (entry = queue.poll()) != null) batch.add(entry);
+                if (!batch.isEmpty()) {
+                    long seq = nextSeq++;
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).setSeq(seq);
+                        batch.get(i).setId(seq + ":" + i); // fixed ids make a retried insert idempotent
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                failedBatch = batch;
+                insert(batch);
+                failedBatch = null;
+                unapplied = true;
+            }
+            if (unapplied) {
+                applyUnapplied();
+                unapplied = false;
+            }
+            reconcile();
+            return true;
+        } catch (RuntimeException e) {
+            // Kept and retried on the next run
+            System.out.println("Could not write inventory ledger: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void insert(List<InventoryLedgerEntry> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryLedgerEntry.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            // Entries a previous attempt already wrote are fine
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) throw e;
+            }
+        }
+    }
+
+    // Applies every written-but-unapplied batch in order: one bulk $inc per batch
+    private void applyUnapplied() {
+        Query query = new Query(Criteria.where("applied").is(false)).with(Sort.by("seq"));
+        Map<Long, Map<String, Integer>> batches = new TreeMap<>();
+        for (InventoryLedgerEntry entry : mongoTemplate.find(query, InventoryLedgerEntry.class)) {
+            batches.computeIfAbsent(entry.getSeq(), s -> new LinkedHashMap<>()).merge(entry.getProductId(), entry.getDelta(), Integer::sum);
+        }
+        for (Map.Entry<Long, Map<String, Integer>> batch : batches.entrySet()) {
+            long seq = batch.getKey();
+            Map<String, Integer> deltas = batch.getValue();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+            deltas.forEach((id, delta) -> bulk.updateOne(
+                    new Query(Criteria.where("id").is(id).orOperator(
+                            Criteria.where("ledgerSeq").lt(seq), Criteria.where("ledgerSeq").exists(false))),
+                    AggregationUpdate.update()
+                            .set("stockQuantity").toValue(ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull("stockQuantity").then(0)).add(delta))
+                            .set("ledgerSeq").toValue(seq)
+                            .set("status").toValue(InventoryService.statusFromStock())));
+            bulk.execute();
+            mongoTemplate.updateMulti(new Query(Criteria.where("seq").is(seq)), new Update().set("applied", true), InventoryLedgerEntry.class);
+            // Older applied batches are done with; this one is kept as the sequence high-water mark
+            mongoTemplate.remove(new Query(Criteria.where("applied").is(true).and("seq").lt(seq)), InventoryLedgerEntry.class);
+
+            deltas.forEach((id, delta) -> {
+                Sku sku = skus.get(id);
+                if (sku != null) sku.persisted += delta;
+            });
+            List<Product> changed = mongoTemplate.find(new Query(Criteria.where("id").in(deltas.keySet())), Product.class);
+            if (!changed.isEmpty()) eventPublisher.publishEvent(ProductChangedEvent.saved(changed));
+        }
+    }
+
+    // Folds outside stock edits into the counters. Runs on the writer thread, so every batch we
+    // applied is already in `persisted` and a fresh read differs from it by exactly what others
+    // changed; an edit landing after the read raises another event and is picked up next time.
+    private void reconcile() {
+        if (changedElsewhere.isEmpty()) return;
+        List<String> ids = new ArrayList<>(changedElsewhere);
+        changedElsewhere.removeAll(ids);
+        try {
+            Query query = new Query(Criteria.where("id").in(ids));
+            query.fields().include("stockQuantity");
+            for (Product product : mongoTemplate.find(query, Product.class)) {
+                Sku sku = skus.get(product.getId());
+                if (sku == null) continue;
+                int drift = (product.getStockQuantity() == null ? 0 : product.getStockQuantity()) - sku.persisted;
+                if (drift != 0) {
+                    sku.persisted += drift;
+                    sku.available.addAndGet(drift);
+                }
+            }
+        } catch (RuntimeException e) {
+            changedElsewhere.addAll(ids);
+            throw e;
+        }
+    }
+}
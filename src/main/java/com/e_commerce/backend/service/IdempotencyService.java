@@ -0,0 +1,188 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.IdempotencyRecord;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support: the first request with a key runs, every later one gets its
+ * response back without running anything.
+ *
+ * Keys are claimed by inserting an IN_PROGRESS record into idempotency_keys (unique _id, TTL
+ * on createdAt) and completed with the response. Recently completed keys are also kept in a
+ * Caffeine cache, so a client's retry usually costs no query at all. Concurrent duplicates in
+ * this instance share the first execution through SingleFlight; duplicates arriving at another
+ * instance poll the record until it completes. A request that fails with an exception or a
+ * 5xx releases its key so it can be retried.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_MILLIS = 50;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    // How long a claimed key is held before another request may assume its owner died
+    @Value("${idempotency.lease:30s}")
+    private Duration lease;
+
+    // How long a duplicate waits for the original to finish
+    @Value("${idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    private Cache<String, IdempotencyRecord> recent;
+    private final SingleFlight<String, ResponseEntity<?>> inFlight = new SingleFlight<>();
+
+    @PostConstruct
+    void init() {
+        recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * Runs `action` once per (user, key); `request` identifies what was sent, so a key reused
+     * for a different request is refused.
+     */
+    public ResponseEntity<?> execute(String userId, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("message", HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters"));
+        }
+        String id = (userId == null ? "anonymous" : userId) + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        IdempotencyRecord cached = recent.getIfPresent(id);
+        if (cached != null) return replay(cached, fingerprint);
+        // Keyed with the fingerprint too: a different request reusing the key must not share this response
+        return inFlight.load(id + "#" + fingerprint, () -> executeOnce(id, fingerprint, action));
+    }
+
+    private ResponseEntity<?> executeOnce(String id, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (claim(id, fingerprint)) return run(id, action);
+
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            IdempotencyRecord record = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (record == null) {
+                // Released by a failed attempt (or expired): this request may run it
+                if (claim(id, fingerprint)) return run(id, action);
+                continue;
+            }
+            if (IdempotencyRecord.COMPLETED.equals(record.getStatus())) {
+                recent.put(id, record);
+                return replay(record, fingerprint);
+            }
+            if (!fingerprint.equals(record.getFingerprint())) return mismatch();
+            if (takeOver(id, record)) return run(id, action);
+            if (System.nanoTime() > deadline) {
+                return ResponseEntity.status(409).body(Map.of("message", "A request with this " + HEADER + " is still being processed"));
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ResponseEntity.status(409).body(Map.of("message", "A request with this " + HEADER + " is still being processed"));
+            }
+        }
+    }
+
+    private boolean claim(String id, String fingerprint) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setStatus(IdempotencyRecord.IN_PROGRESS);
+        record.setFingerprint(fingerprint);
+        record.setLockedUntil(LocalDateTime.now().plus(lease));
+        try {
+            mongoTemplate.insert(record);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Claims a record whose owner let the lease run out
+    private boolean takeOver(String id, IdempotencyRecord record) {
+        if (record.getLockedUntil() != null && record.getLockedUntil().isAfter(LocalDateTime.now())) return false;
+        Query abandoned = new Query(Criteria.where("id").is(id)
+                .and("status").is(IdempotencyRecord.IN_PROGRESS)
+                .and("lockedUntil").is(record.getLockedUntil()));
+        return mongoTemplate.findAndModify(abandoned,
+                new Update().set("lockedUntil", LocalDateTime.now().plus(lease)),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class) != null;
+    }
+
+    private ResponseEntity<?> run(String id, Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            release(id);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            release(id);
+            return response;
+        }
+        IdempotencyRecord completed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id)),
+                new Update().set("status", IdempotencyRecord.COMPLETED)
+                        .set("responseStatus", response.getStatusCode().value())
+                        .set("responseBody", response.getBody())
+                        .unset("lockedUntil"),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+        if (completed != null) recent.put(id, completed);
+        return response;
+    }
+
+    private void release(String id) {
+        mongoTemplate.remove(new Query(Criteria.where("id").is(id).and("status").is(IdempotencyRecord.IN_PROGRESS)), IdempotencyRecord.class);
+    }
+
+    private static ResponseEntity<?> replay(IdempotencyRecord record, String fingerprint) {
+        if (!fingerprint.equals(record.getFingerprint())) return mismatch();
+        return ResponseEntity.status(record.getResponseStatus())
+                .header(REPLAYED_HEADER, "true")
+                .body(record.getResponseBody());
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.status(422).body(Map.of("message", HEADER + " was already used for a different request"));
+    }
+
+    private static String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(String.valueOf(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
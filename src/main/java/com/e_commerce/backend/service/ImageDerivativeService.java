@@ -0,0 +1,170 @@
+package com.e_commerce.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resized copies of uploaded images (product photos and avatars), generated in the background
+ * after the upload has been answered.
+ *
+ * Derivatives live next to the original as `.derived/<size>/<original name>.jpg` and are
+ * written to a temp file first, so a half-written derivative is never served. Until they
+ * exist, requests for a size get the original.
+ */
+@Service
+public class ImageDerivativeService {
+
+    public static final String DERIVED_DIR = ".derived";
+
+    public enum Size {
+        THUMB(160), CARD(480), DETAIL(1200);
+
+        public final int width;
+
+        Size(int width) {
+            this.width = width;
+        }
+
+        public static Size parse(String value) {
+            if (value == null) return null;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // Decoding a large photo takes tens of MB of heap, so only a few run at once and only a
+    // bounded backlog waits; past that, new uploads keep serving their original
+    private final ThreadPoolExecutor executor;
+
+    @Value("${image.derivatives.quality:0.82}")
+    private float quality;
+
+    public ImageDerivativeService(@Value("${image.derivatives.concurrency:2}") int concurrency,
+                                  @Value("${image.derivatives.queue-capacity:200}") int queueCapacity) {
+        int threads = Math.max(1, concurrency);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("image-derivative-", 0).daemon().factory(),
+                (task, pool) -> System.out.println("Image derivative queue is full; skipping a task"));
+    }
+
+    /**
+     * Queues derivative generation for a freshly stored original; returns immediately.
+     */
+    public void generateAsync(Path original) {
+        executor.execute(() -> {
+            try {
+                generate(original);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Could not create image derivatives for " + original.getFileName() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Derivative path for `original` at `size` (may not exist yet).
+     */
+    public static Path derivativePath(Path original, Size size) {
+        String name = size.name().toLowerCase(Locale.ROOT);
+        return original.resolveSibling(DERIVED_DIR).resolve(name).resolve(original.getFileName() + ".jpg");
+    }
+
+    /**
+     * Removes all derivatives of an original, e.g. when the original itself is deleted.
+     */
+    public void deleteDerivatives(Path original) {
+        for (Size size : Size.values()) {
+            try {
+                Files.deleteIfExists(derivativePath(original, size));
+            } catch (IOException e) {
+                System.out.println("Could not delete derivative " + size + " of " + original.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    void generate(Path original) throws IOException {
+        // Subsampled to no less than twice the largest width, so the halving steps still have detail
+        BoundedImageReader.Decoded decoded = BoundedImageReader.read(original, Size.DETAIL.width * 2, 1);
+        if (decoded == null) return; // not an image ImageIO can decode; the original is served as-is
+
+        for (Size size : Size.values()) {
+            // Never upscale; for small originals the larger sizes just fall back to the original
+            if (decoded.width() <= size.width) continue;
+            BufferedImage resized = resize(decoded.image(), size.width);
+            Path target = derivativePath(original, size);
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "tmp-", ".jpg");
+            try {
+                writeJpeg(resized, tmp);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Halves in steps before the final scale, which keeps bilinear scaling from aliasing
+    private static BufferedImage resize(BufferedImage source, int targetWidth) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setColor(Color.WHITE); // JPEG has no alpha; flatten transparent PNGs onto white
+                g.fillRect(0, 0, width, height);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.ImageMetadata;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.ImageMetadataRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Width, height, dominant color and a BlurHash placeholder for product images.
+ *
+ * Computed once when an image is uploaded and kept in image_metadata by URL; products copy
+ * the entries for their images on create/update, so GET responses carry them without any
+ * extra lookups. Images uploaded before this existed are measured the first time a product
+ * referencing them is saved.
+ */
+@Service
+public class ImageMetadataService {
+
+    // Everything is derived from a small copy; BlurHash only needs a few dozen pixels anyway
+    private static final int SAMPLE_SIZE = 32;
+    private static final String BASE83 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    @Autowired
+    private ImageMetadataRepository repository;
+
+    /**
+     * Measures a just-stored upload. Failures are logged, never fail the upload.
+     */
+    public void recordUpload(UploadStore.Stored stored) {
+        if (!stored.created() && repository.existsById(stored.url())) return;
+        try {
+            ImageMetadata metadata = compute(stored.path(), stored.url());
+            if (metadata != null) repository.save(metadata);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not compute image metadata for " + stored.url() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Metadata for `urls`, position for position; unknown images get a null entry so the list
+     * stays aligned with `images` (the card projection slices both to their first element). With
+     * `computeMissing`, local uploads without a record are measured and stored first.
+     */
+    public List<Product.ImageInfo> lookup(List<String> urls, boolean computeMissing) {
+        if (urls == null || urls.isEmpty()) return new ArrayList<>();
+        Map<String, Product.ImageInfo> known = findAll(urls);
+        List<Product.ImageInfo> result = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            Product.ImageInfo info = known.get(url);
+            if (info == null && computeMissing) info = computeLocal(url);
+            result.add(info);
+        }
+        return result;
+    }
+
+    /**
+     * One query for a whole batch of image URLs (e.g. an import batch).
+     */
+    public Map<String, Product.ImageInfo> findAll(Collection<String> urls) {
+        Map<String, Product.ImageInfo> known = new HashMap<>();
+        repository.findAllById(urls).forEach(m -> known.put(m.getUrl(), m.toImageInfo()));
+        return known;
+    }
+
+    private Product.ImageInfo computeLocal(String url) {
+        Path file = UploadStore.Area.PRODUCTS.pathOf(url);
+        if (file == null || !Files.isRegularFile(file)) return null;
+        try {
+            ImageMetadata metadata = compute(file, url);
+            if (metadata == null) return null;
+            return repository.save(metadata).toImageInfo();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not compute image metadata for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static ImageMetadata compute(Path file, String url) throws IOException {
+        // A few times the sample size is plenty to downscale from; the full image is never decoded
+        BoundedImageReader.Decoded decoded = BoundedImageReader.read(file, SAMPLE_SIZE * 4, SAMPLE_SIZE * 4);
+        if (decoded == null) return null; // format ImageIO can't decode (e.g. WebP)
+
+        BufferedImage sample = downscale(decoded.image());
+        boolean landscape = decoded.width() >= decoded.height();
+        ImageMetadata metadata = new ImageMetadata();
+        metadata.setUrl(url);
+        metadata.setWidth(decoded.width());
+        metadata.setHeight(decoded.height());
+        metadata.setDominantColor(dominantColor(sample));
+        metadata.setPlaceholder(blurHash(sample, landscape ? 4 : 3, landscape ? 3 : 4));
+        return metadata;
+    }
+
+    private static BufferedImage downscale(BufferedImage image) {
+        double scale = Math.min(1.0, (double) SAMPLE_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage sample = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sample.createGraphics();
+        try {
+            g.setColor(Color.WHITE); // transparent areas show up white, as on the storefront
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return sample;
+    }
+
+    // Most common color bucket (4 bits per channel), averaged within the bucket
+    static String dominantColor(BufferedImage sample) {
+        int[] counts = new int[4096];
+        long[][] sums = new long[4096][3];
+        for (int y = 0; y < sample.getHeight(); y++) {
+            for (int x = 0; x < sample.getWidth(); x++) {
+                int rgb = sample.getRGB(x, y);
+                int r = (rgb >> 16) & 0xff, g = (rgb >> 8) & 0xff, b = rgb & 0xff;
+                int bucket = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+                counts[bucket]++;
+                sums[bucket][0] += r;
+                sums[bucket][1] += g;
+                sums[bucket][2] += b;
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] > counts[best]) best = i;
+        }
+        int n = Math.max(1, counts[best]);
+        return String.format("#%02x%02x%02x", sums[best][0] / n, sums[best][1] / n, sums[best][2] / n);
+    }
+
+    // BlurHash encoder (https://blurha.sh) with componentsX x componentsY DCT components
+    static String blurHash(BufferedImage image, int componentsX, int componentsY) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[][] linear = new double[width * height][3];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                double[] pixel = linear[y * width + x];
+                pixel[0] = srgbToLinear((rgb >> 16) & 0xff);
+                pixel[1] = srgbToLinear((rgb >> 8) & 0xff);
+                pixel[2] = srgbToLinear(rgb & 0xff);
+            }
+        }
+
+        double[][] factors = new double[componentsX * componentsY][3];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                double[] factor = factors[j * componentsX + i];
+                for (int y = 0; y < height; y++) {
+                    double cosY = Math.cos(Math.PI * j * y / height);
+                    for (int x = 0; x < width; x++) {
+                        double basis = normalisation * Math.cos(Math.PI * i * x / width) * cosY;
+                        double[] pixel = linear[y * width + x];
+                        factor[0] += basis * pixel[0];
+                        factor[1] += basis * pixel[1];
+                        factor[2] += basis * pixel[2];
+                    }
+                }
+                double scale = 1.0 / (width * height);
+                factor[0] *= scale;
+                factor[1] *= scale;
+                factor[2] *= scale;
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+
+        double maximumValue;
+        if (factors.length > 1) {
+            double actualMax = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double v : factors[k]) actualMax = Math.max(actualMax, Math.abs(v));
+            }
+            int quantisedMax = (int) Math.max(0, Math.min(82, Math.floor(actualMax * 166 - 0.5)));
+            maximumValue = (quantisedMax + 1) / 166.0;
+            encode83(hash, quantisedMax, 1);
+        } else {
+            maximumValue = 1;
+            encode83(hash, 0, 1);
+        }
+
+        double[] dc = factors[0];
+        encode83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int r = quantiseAc(ac[0], maximumValue);
+            int g = quantiseAc(ac[1], maximumValue);
+            int b = quantiseAc(ac[2], maximumValue);
+            encode83(hash, r * 19 * 19 + g * 19 + b, 2);
+        }
+        return hash.toString();
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double v = value / maximumValue;
+        double signPow = Math.copySign(Math.pow(Math.abs(v), 0.5), v);
+        return (int) Math.max(0, Math.min(18, Math.floor(signPow * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void encode83(StringBuilder out, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (int) (value / Math.pow(83, length - i)) % 83;
+            out.append(BASE83.charAt(digit));
+        }
+    }
+}
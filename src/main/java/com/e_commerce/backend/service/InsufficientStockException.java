@@ -0,0 +1,21 @@
+package com.e_commerce.backend.service;
+
+import java.util.List;
+
+/**
+ * A reservation that could not be made in full; `productIds` are the lines that were short
+ * (or no longer exist). Nothing stays reserved when this is thrown.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> productIds;
+
+    public InsufficientStockException(List<String> productIds) {
+        super("Insufficient stock for " + productIds);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<String> getProductIds() {
+        return productIds;
+    }
+}
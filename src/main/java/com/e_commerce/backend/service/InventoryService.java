@@ -0,0 +1,190 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stock reservation for checkout.
+ *
+ * All lines are decremented with one unordered bulkWrite of conditional updates: each only
+ * matches while stockQuantity >= the ordered quantity, so the check and the decrement are a
+ * single atomic step per product and concurrent buyers cannot oversell. The same pipeline
+ * recomputes status and tags the product with pendingReservations.<token> = quantity.
+ *
+ * If any line did not match, the tag tells exactly which products were decremented by this
+ * reservation, and one update puts their stock back. Tags of successful reservations are
+ * removed in the background once the order is stored.
+ *
+ * Products configured as hot SKUs are reserved in memory by HotInventoryEngine instead;
+ * a cart mixing both takes the hot lines first and gives them back if a Mongo line is short.
+ */
+@Service
+public class InventoryService {
+
+    private static final String PENDING = "pendingReservations.";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private HotInventoryEngine hotInventory;
+
+    private final ExecutorService cleanup = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("reservation-cleanup").factory());
+
+    /**
+     * What `reserve` took (`quantities` in Mongo, `hotQuantities` in memory); hand it back to
+     * `confirm` or `release`.
+     */
+    public record Reservation(String token, Map<String, Integer> quantities, Map<String, Integer> hotQuantities) {}
+
+    /**
+     * Takes `quantities` (productId -> quantity) out of stock, all or nothing.
+     *
+     * @throws InsufficientStockException if any product is missing or short; nothing is kept then
+     */
+    public Reservation reserve(Map<String, Integer> quantities) {
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        quantities.forEach((id, qty) -> {
+            if (qty == null || qty <= 0) throw new IllegalArgumentException("quantity must be positive");
+            lines.merge(id, qty, Integer::sum);
+        });
+        if (lines.isEmpty()) throw new IllegalArgumentException("Nothing to reserve");
+
+        Map<String, Integer> hot = new LinkedHashMap<>();
+        Map<String, Integer> cold = new LinkedHashMap<>();
+        lines.forEach((id, qty) -> (hotInventory.isHot(id) ? hot : cold).put(id, qty));
+        if (!hot.isEmpty()) {
+            List<String> shortIds = hotInventory.tryReserve(hot);
+            if (!shortIds.isEmpty()) throw new InsufficientStockException(shortIds);
+        }
+        Reservation reservation = new Reservation(null, cold, hot);
+        if (cold.isEmpty()) return reservation; // all in memory: no round trip at all
+        try {
+            return reserveInMongo(cold, hot);
+        } catch (RuntimeException e) {
+            hotInventory.release(hot);
+            throw e;
+        }
+    }
+
+    private Reservation reserveInMongo(Map<String, Integer> lines, Map<String, Integer> hot) {
+        // No dashes or dots: the token becomes part of a field name
+        String token = UUID.randomUUID().toString().replace("-", "");
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        lines.forEach((id, qty) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(id).and("stockQuantity").gte(qty)),
+                AggregationUpdate.update()
+                        .set("stockQuantity").toValue(ArithmeticOperators.Subtract.valueOf("stockQuantity").subtract(qty))
+                        .set(PENDING + token).toValue(qty)
+                        .set("status").toValue(statusFromStock())));
+
+        long matched;
+        try {
+            matched = bulk.execute().getMatchedCount();
+        } catch (BulkOperationException e) {
+            BulkWriteResult partial = e.getResult();
+            matched = partial == null ? 0 : partial.getMatchedCount();
+        }
+
+        Reservation reservation = new Reservation(token, lines, hot);
+        if (matched < lines.size()) {
+            Set<String> taken = taggedIds(token, lines.keySet());
+            List<String> failed = new ArrayList<>();
+            for (String id : lines.keySet()) {
+                if (!taken.contains(id)) failed.add(id);
+            }
+            if (!taken.isEmpty()) rollBack(token, taken);
+            throw new InsufficientStockException(failed);
+        }
+        publish(lines.keySet());
+        return reservation;
+    }
+
+    /**
+     * The order is stored: drop the reservation tags (in the background, off the checkout path).
+     */
+    public void confirm(Reservation reservation) {
+        if (reservation.quantities().isEmpty()) return;
+        cleanup.execute(() -> {
+            try {
+                mongoTemplate.updateMulti(
+                        new Query(Criteria.where("id").in(reservation.quantities().keySet())),
+                        new Update().unset(PENDING + reservation.token()),
+                        Product.class);
+            } catch (RuntimeException e) {
+                // A leftover tag is harmless; it is never read again
+                System.out.println("Could not clean up reservation " + reservation.token() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Puts a reservation's stock back, e.g. when the order could not be stored.
+     */
+    public void release(Reservation reservation) {
+        if (!reservation.quantities().isEmpty() && rollBack(reservation.token(), reservation.quantities().keySet()) > 0) {
+            publish(reservation.quantities().keySet());
+        }
+        if (!reservation.hotQuantities().isEmpty()) hotInventory.release(reservation.hotQuantities());
+    }
+
+    // Adds each tagged product's reserved quantity back and removes the tag, in one update. The tag
+    // field is not indexed (a new name per reservation), so `productIds` keeps this on _id
+    private long rollBack(String token, Collection<String> productIds) {
+        return mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(productIds).and(PENDING + token).exists(true)),
+                AggregationUpdate.update()
+                        .set("stockQuantity").toValue(ArithmeticOperators.Add.valueOf("stockQuantity").add(PENDING + token))
+                        .set("status").toValue(statusFromStock())
+                        .unset(PENDING + token),
+                Product.class).getModifiedCount();
+    }
+
+    private Set<String> taggedIds(String token, Collection<String> productIds) {
+        Query query = new Query(Criteria.where("id").in(productIds).and(PENDING + token).exists(true));
+        query.fields().include("id");
+        Set<String> ids = new HashSet<>();
+        mongoTemplate.find(query, Product.class).forEach(p -> ids.add(p.getId()));
+        return ids;
+    }
+
+    private void publish(Set<String> productIds) {
+        List<Product> changed = mongoTemplate.find(new Query(Criteria.where("id").in(productIds)), Product.class);
+        if (!changed.isEmpty()) eventPublisher.publishEvent(ProductChangedEvent.saved(changed));
+    }
+
+    // Same rule as Product.statusFor, evaluated on the stock the previous stage wrote
+    static ConditionalOperators.Cond statusFromStock() {
+        return ConditionalOperators.when(ComparisonOperators.Gt.valueOf("stockQuantity").greaterThanValue(0))
+                .then(Product.IN_STOCK)
+                .otherwise(Product.OUT_OF_STOCK);
+    }
+}
@@ -0,0 +1,175 @@
+package com.e_commerce.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal incremental multipart/form-data parser (RFC 7578) over a raw request body.
+ *
+ * Parts are handed out one at a time as streams that read straight from the request, so a
+ * file part can be written to its destination without buffering it in memory or in a temp
+ * file first. Only one part is readable at a time; next() skips whatever is left of the
+ * previous one.
+ */
+final class MultipartStreamReader {
+
+    static final int DEFAULT_BUFFER = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+    private static final Pattern DISPOSITION_PARAM = Pattern.compile("(\\w+)\\s*=\\s*(?:\"([^\"]*)\"|([^;\\s]+))");
+
+    record Part(String name, String filename, String contentType, InputStream body) {
+    }
+
+    private final InputStream in;
+    private final byte[] delimiter; // CRLF "--" boundary
+    private final byte[] buf;
+    private int head;
+    private int tail;
+    private int safeEnd; // [head, safeEnd) is known to be body content, so it is not scanned again
+    private boolean eof;
+    private boolean atDelimiter;
+    private boolean finished;
+
+    MultipartStreamReader(InputStream in, String boundary) {
+        this(in, boundary, DEFAULT_BUFFER);
+    }
+
+    MultipartStreamReader(InputStream in, String boundary, int bufferSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buf = new byte[Math.max(bufferSize, MAX_HEADER_BYTES) + delimiter.length];
+        // The first boundary has no leading CRLF; pretend it does and treat the preamble as a part
+        buf[0] = '\r';
+        buf[1] = '\n';
+        tail = 2;
+    }
+
+    /**
+     * The next part, or null after the closing boundary.
+     */
+    Part next() throws IOException {
+        if (finished) return null;
+        byte[] skip = new byte[8192];
+        while (readBody(skip, 0, skip.length) != -1) {
+            // discard the rest of the previous part (or the preamble)
+        }
+        head += delimiter.length;
+        atDelimiter = false;
+
+        ensure(2);
+        if (tail - head < 2) throw new IOException("Truncated multipart body");
+        if (buf[head] == '-' && buf[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        if (buf[head] != '\r' || buf[head + 1] != '\n') throw new IOException("Malformed multipart boundary");
+        head += 2;
+        return readHeaders();
+    }
+
+    private Part readHeaders() throws IOException {
+        String headers;
+        ensure(2);
+        if (tail - head >= 2 && buf[head] == '\r' && buf[head + 1] == '\n') {
+            head += 2; // part without headers
+            headers = "";
+        } else {
+            int end;
+            while ((end = indexOf(HEADER_END, head, tail)) < 0) {
+                if (tail - head > MAX_HEADER_BYTES) throw new IOException("Multipart headers too large");
+                if (eof) throw new IOException("Truncated multipart headers");
+                fill();
+            }
+            headers = new String(buf, head, end - head, StandardCharsets.UTF_8);
+            head = end + HEADER_END.length;
+        }
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (String line : headers.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+            String header = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (header.equals("content-type")) {
+                contentType = value;
+            } else if (header.equals("content-disposition")) {
+                Matcher m = DISPOSITION_PARAM.matcher(value);
+                while (m.find()) {
+                    String param = m.group(2) != null ? m.group(2) : m.group(3);
+                    if (m.group(1).equalsIgnoreCase("name")) name = param;
+                    else if (m.group(1).equalsIgnoreCase("filename")) filename = param;
+                }
+            }
+        }
+        return new Part(name, filename, contentType, new PartInputStream());
+    }
+
+    // Reads body bytes of the current part; -1 once the next delimiter is reached
+    private int readBody(byte[] b, int off, int len) throws IOException {
+        if (atDelimiter) return -1;
+        while (head >= safeEnd) {
+            int match = indexOf(delimiter, head, tail);
+            if (match == head) {
+                atDelimiter = true;
+                return -1;
+            }
+            // Without a match, hold back enough bytes to complete a delimiter split across reads
+            safeEnd = match >= 0 ? match : Math.max(head, tail - (delimiter.length - 1));
+            if (safeEnd > head) break;
+            if (eof) throw new IOException("Truncated multipart body");
+            fill();
+        }
+        int n = Math.min(safeEnd - head, len);
+        System.arraycopy(buf, head, b, off, n);
+        head += n;
+        return n;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        while (tail - head < bytes && !eof) fill();
+    }
+
+    private void fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buf, head, buf, 0, tail - head);
+            tail -= head;
+            safeEnd -= head;
+            head = 0;
+        }
+        int n = in.read(buf, tail, buf.length - tail);
+        if (n < 0) eof = true;
+        else tail += n;
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private final class PartInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            return readBody(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.OrderSummaryDTO;
+import com.e_commerce.backend.dto.PageResponseDTO;
+import com.e_commerce.backend.entity.Order;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (cursor) pagination over a user's orders, newest first.
+ *
+ * Pages walk the (userId, createdAt, _id) index and only summaries leave the database: the
+ * item count and first image are computed in the projection, so items, address and payment
+ * are never sent over the wire for the list.
+ */
+@Service
+public class OrderHistoryService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public PageResponseDTO<OrderSummaryDTO> findPage(String userId, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        Criteria match = Criteria.where("userId").is(userId);
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = decodeCursor(cursor);
+            match = match.orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt),
+                    Criteria.where("createdAt").is(after.createdAt).and("id").lt(after.lastId));
+        }
+
+        List<Object> emptyList = List.of();
+        TypedAggregation<Order> aggregation = Aggregation.newAggregation(Order.class,
+                Aggregation.match(match),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"))),
+                Aggregation.limit(pageSize + 1), // one extra row tells us whether another page exists
+                Aggregation.project("total", "status", "createdAt")
+                        .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("items").then(emptyList))).as("itemCount")
+                        .and(ArrayOperators.ArrayElemAt.arrayOf(
+                                ConditionalOperators.ifNull(ArrayOperators.ArrayElemAt.arrayOf("items.images").elementAt(0)).then(emptyList))
+                                .elementAt(0)).as("firstImage"));
+
+        List<OrderSummaryDTO> orders = new ArrayList<>(mongoTemplate.aggregate(aggregation, OrderSummaryDTO.class).getMappedResults());
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = new ArrayList<>(orders.subList(0, pageSize));
+            OrderSummaryDTO last = orders.get(orders.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new PageResponseDTO<>(orders, nextCursor);
+    }
+
+    // --- Cursor encoding: base64url("<createdAt>|<id>"), opaque to clients ---
+
+    private static String encodeCursor(LocalDateTime createdAt, String lastId) {
+        String raw = createdAt + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String lastId = raw.substring(sep + 1);
+            if (!ObjectId.isValid(lastId)) throw new IllegalArgumentException("Invalid cursor");
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), new ObjectId(lastId));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, ObjectId lastId) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.Product;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * The follow-up work of a placed order, run by OutboxService off the checkout path. Exceptions
+ * make the outbox retry the message later.
+ *
+ * Mail goes through the JavaMailSender Spring Boot configures when spring.mail.host is set;
+ * without it messages are only logged.
+ */
+@Service
+public class OrderNotificationService {
+
+    @Autowired
+    private ObjectProvider<JavaMailSender> mailSender;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mail.from:no-reply@school-supply.local}")
+    private String from;
+
+    @Value("${inventory.low-stock-threshold:5}")
+    private int lowStockThreshold;
+
+    // Who gets low-stock alerts; empty to only log them
+    @Value("${inventory.low-stock-alert-to:}")
+    private String lowStockAlertTo;
+
+    public void sendConfirmation(Order order) {
+        String to = order.getUserId();
+        if (to == null || !to.contains("@")) return; // guest checkout: nobody to write to
+
+        StringBuilder text = new StringBuilder("Thank you for your order!\n\nOrder number: " + order.getId() + "\n\n");
+        for (Order.OrderItem item : order.getItems()) {
+            text.append(item.getQuantity()).append(" x ").append(item.getName())
+                    .append(String.format("  %.2f%n", item.getPrice() == null ? 0.0 : item.getPrice()));
+        }
+        text.append(String.format("%nTotal: %.2f%n", order.getTotal() == null ? 0.0 : order.getTotal()));
+        send(to, "Your order " + order.getId(), text.toString());
+    }
+
+    public void checkLowStock(Order order) {
+        List<String> productIds = order.getItems().stream().map(Order.OrderItem::getProductId).distinct().toList();
+        Query query = new Query(Criteria.where("id").in(productIds).and("stockQuantity").lte(lowStockThreshold));
+        query.fields().include("name").include("brandName").include("stockQuantity");
+        List<Product> low = mongoTemplate.find(query, Product.class);
+        if (low.isEmpty()) return;
+
+        StringBuilder text = new StringBuilder("Stock is running low after order " + order.getId() + ":\n\n");
+        for (Product product : low) {
+            text.append(product.getStockQuantity()).append(" left: ").append(product.getName());
+            if (product.getBrandName() != null) text.append(" (").append(product.getBrandName()).append(")");
+            text.append("\n");
+        }
+        if (lowStockAlertTo.isBlank()) {
+            System.out.println(text);
+            return;
+        }
+        send(lowStockAlertTo, "Low stock: " + low.size() + " product(s)", text.toString());
+    }
+
+    private void send(String to, String subject, String text) {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null) {
+            System.out.println("Mail not configured, not sending \"" + subject + "\" to " + to);
+            return;
+        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(text);
+        sender.send(message);
+    }
+}
@@ -0,0 +1,237 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.OutboxMessage;
+import com.e_commerce.backend.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for the work that follows a checkout (confirmation mail, low-stock
+ * alerts), so createOrder only waits for the essential writes.
+ *
+ * Without multi-document transactions the messages are inserted first, under the order's
+ * pre-assigned id, and the order after them: a crash in between leaves messages for an order
+ * that does not exist, which the dispatcher discards, never an order without its messages.
+ *
+ * A virtual-thread dispatcher claims due messages with findAndModify (so several instances can
+ * share the collection), runs a batch concurrently on virtual threads and retries failures
+ * with exponential backoff up to outbox.max-attempts. Handled messages expire after 7 days.
+ */
+@Service
+public class OutboxService {
+
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderNotificationService notifications;
+
+    @Value("${outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    // A claimed message not finished within this is picked up again (its instance died)
+    @Value("${outbox.lease:2m}")
+    private Duration lease;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbox-worker-", 0).factory());
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    /**
+     * Queues `types` of follow-up work for an order that is about to be stored; one insert.
+     *
+     * This is an extra round trip on the checkout path, before the order is saved. The insert
+     * and the order save are separate writes, not one unit of work: if the save fails the caller
+     * has to `discard` these messages, and a crash in between leaves them for the dispatcher to
+     * discard (see the class comment).
+     */
+    public void record(String orderId, String... types) {
+        List<OutboxMessage> messages = new ArrayList<>(types.length);
+        for (String type : types) {
+            OutboxMessage message = new OutboxMessage();
+            message.setType(type);
+            message.setOrderId(orderId);
+            messages.add(message);
+        }
+        mongoTemplate.insertAll(messages);
+    }
+
+    /**
+     * Drops the pending messages of an order that could not be stored after all.
+     */
+    public void discard(String orderId) {
+        mongoTemplate.remove(new Query(Criteria.where("orderId").is(orderId).and("status").is(OutboxMessage.PENDING)), OutboxMessage.class);
+    }
+
+    /**
+     * Tells the dispatcher new messages are ready, instead of waiting for the next poll.
+     */
+    public void signal() {
+        if (wakeUp.availablePermits() == 0) wakeUp.release();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        dispatcher = Thread.ofVirtual().name("outbox-dispatcher").start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (dispatcher == null) return;
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(Duration.ofSeconds(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        System.out.println("Outbox: " + delivered.get() + " messages handled, " + retried.get() + " retries");
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                if (dispatchBatch() < batchSize) {
+                    wakeUp.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.out.println("Outbox dispatch failed: " + e.getMessage());
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Claims up to batchSize due messages and handles them concurrently; returns how many
+    int dispatchBatch() throws InterruptedException {
+        List<OutboxMessage> claimed = new ArrayList<>();
+        OutboxMessage message;
+        while (claimed.size() < batchSize && (message = claimNext()) != null) claimed.add(message);
+        if (claimed.isEmpty()) return 0;
+
+        Map<String, Order> orders = new HashMap<>();
+        orderRepository.findAllById(claimed.stream().map(OutboxMessage::getOrderId).distinct().toList())
+                .forEach(order -> orders.put(order.getId(), order));
+
+        List<Future<?>> handled = new ArrayList<>();
+        for (OutboxMessage claim : claimed) {
+            handled.add(workers.submit(() -> handle(claim, orders.get(claim.getOrderId()))));
+        }
+        for (Future<?> future : handled) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                System.out.println("Outbox handler crashed: " + e.getCause());
+            }
+        }
+        return claimed.size();
+    }
+
+    private OutboxMessage claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        Query due = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(OutboxMessage.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxMessage.PROCESSING).and("lockedUntil").lt(now)))
+                .with(Sort.by("nextAttemptAt"));
+        return mongoTemplate.findAndModify(due,
+                new Update().set("status", OutboxMessage.PROCESSING).set("lockedUntil", now.plus(lease)).inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), OutboxMessage.class);
+    }
+
+    private void handle(OutboxMessage message, Order order) {
+        try {
+            if (order == null) throw new IllegalStateException("Order " + message.getOrderId() + " is not stored");
+            switch (message.getType()) {
+                case OutboxMessage.ORDER_CONFIRMATION -> notifications.sendConfirmation(order);
+                case OutboxMessage.LOW_STOCK_CHECK -> notifications.checkLowStock(order);
+                default -> throw new IllegalStateException("Unknown outbox message type " + message.getType());
+            }
+            finish(message, OutboxMessage.DONE, null);
+            delivered.incrementAndGet();
+        } catch (RuntimeException e) {
+            if (message.getAttempts() < maxAttempts) {
+                retryLater(message, e.getMessage());
+            } else {
+                // Still no order after every retry: checkout failed before storing it
+                finish(message, order == null ? OutboxMessage.DISCARDED : OutboxMessage.FAILED, e.getMessage());
+                System.out.println("Outbox message " + message.getId() + " (" + message.getType() + ") gave up: " + e.getMessage());
+            }
+        }
+    }
+
+    private void finish(OutboxMessage message, String status, String error) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(message.getId())),
+                new Update().set("status", status).set("processedAt", LocalDateTime.now())
+                        .set("lastError", error).unset("lockedUntil"),
+                OutboxMessage.class);
+    }
+
+    private void retryLater(OutboxMessage message, String error) {
+        retried.incrementAndGet();
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(message.getId())),
+                new Update().set("status", OutboxMessage.PENDING)
+                        .set("nextAttemptAt", LocalDateTime.now().plus(backoff(message.getAttempts())))
+                        .set("lastError", error).unset("lockedUntil"),
+                OutboxMessage.class);
+    }
+
+    // 1s, 2s, 4s, ... up to 10 minutes, with jitter so failed batches don't retry in lockstep
+    private static Duration backoff(int attempts) {
+        long millis = BASE_BACKOFF.toMillis() << Math.min(attempts - 1, 20);
+        millis = Math.min(millis, MAX_BACKOFF.toMillis());
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+}
@@ -0,0 +1,198 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.BulkProductUpdateDTO;
+import com.e_commerce.backend.dto.BulkUpdateResultDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a batch of price/stock/discount changes with one unordered bulkWrite.
+ *
+ * Each entry becomes a pipeline update: $set for given values, an $add for stock deltas,
+ * then the status recomputed from the resulting stock (the same rule as
+ * ProductController.update). A negative delta only matches while the stock covers it, so
+ * concurrent checkouts or the same id repeated in a batch can't drive stock below zero.
+ *
+ * Outcomes come from the write itself, not from an earlier read: the pipeline's first stage
+ * appends {op, changed} to bulkUpdates.<token>, a field private to this batch (as with
+ * InventoryService's pendingReservations), comparing the stored values before they are
+ * overwritten. One read-back then tells every op's result and supplies the products for
+ * listeners, and the tag is unset. A batch costs three round trips: write, read-back, unset.
+ */
+@Service
+public class ProductBulkUpdateService {
+
+    public static final int MAX_BATCH = 5000;
+    private static final String TAG = "bulkUpdates.";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<BulkUpdateResultDTO> apply(List<BulkProductUpdateDTO> updates) {
+        if (updates.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH + " updates per request");
+        }
+
+        BulkUpdateResultDTO[] results = new BulkUpdateResultDTO[updates.size()];
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        // No dots: the token becomes part of a field name
+        String token = new ObjectId().toHexString();
+        List<Integer> opToItem = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            BulkProductUpdateDTO update = updates.get(i);
+            String error = validate(update);
+            if (error != null) {
+                results[i] = new BulkUpdateResultDTO(update.getId(), BulkUpdateResultDTO.FAILED, error);
+                continue;
+            }
+            Criteria filter = Criteria.where("id").is(update.getId());
+            if (isDecrement(update)) {
+                filter = filter.and("stockQuantity").gte(-update.getStockDelta());
+            }
+            bulk.updateOne(new Query(filter), toPipeline(update, token, opToItem.size()));
+            opToItem.add(i);
+        }
+        if (opToItem.isEmpty()) return List.of(results);
+
+        Set<Integer> failedOps = new HashSet<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failedOps.add(error.getIndex());
+                int item = opToItem.get(error.getIndex());
+                results[item] = new BulkUpdateResultDTO(updates.get(item).getId(), BulkUpdateResultDTO.FAILED, error.getMessage());
+            }
+        }
+
+        List<String> ids = opToItem.stream().map(item -> updates.get(item).getId()).distinct().toList();
+        Map<String, Document> stored = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("_id").in(rawIds(ids))), Document.class, mongoTemplate.getCollectionName(Product.class))
+                .forEach(product -> stored.put(product.get("_id").toString(), product));
+        Map<Integer, Boolean> applied = appliedOps(token, stored.values());
+        mongoTemplate.updateMulti(new Query(Criteria.where("id").in(ids).and(TAG + token).exists(true)),
+                new Update().unset(TAG + token), Product.class);
+
+        Set<String> changedIds = new HashSet<>();
+        for (int op = 0; op < opToItem.size(); op++) {
+            if (failedOps.contains(op)) continue;
+            int item = opToItem.get(op);
+            String id = updates.get(item).getId();
+            Boolean changed = applied.get(op);
+            if (changed != null) {
+                results[item] = new BulkUpdateResultDTO(id, changed ? BulkUpdateResultDTO.CHANGED : BulkUpdateResultDTO.UNCHANGED, null);
+                if (changed) changedIds.add(id);
+            } else if (stored.containsKey(id) && isDecrement(updates.get(item))) {
+                results[item] = new BulkUpdateResultDTO(id, BulkUpdateResultDTO.FAILED, "Stock would become negative");
+            } else {
+                results[item] = new BulkUpdateResultDTO(id, BulkUpdateResultDTO.NOT_FOUND, null);
+            }
+        }
+        publishChanged(changedIds, stored);
+        return List.of(results);
+    }
+
+    // Op index -> whether it changed anything, for every op of this batch that matched
+    private static Map<Integer, Boolean> appliedOps(String token, Collection<Document> products) {
+        Map<Integer, Boolean> applied = new HashMap<>();
+        for (Document product : products) {
+            Document tags = product.get("bulkUpdates", Document.class);
+            List<Document> ops = tags == null ? null : tags.getList(token, Document.class);
+            if (ops == null) continue;
+            ops.forEach(op -> applied.put(op.getInteger("op"), op.getBoolean("changed")));
+        }
+        return applied;
+    }
+
+    // Raw documents skip the entity mapping, so ids are converted the way Spring stores them
+    private static List<Object> rawIds(List<String> ids) {
+        return ids.stream().map(id -> ObjectId.isValid(id) ? (Object) new ObjectId(id) : id).toList();
+    }
+
+    private void publishChanged(Set<String> changedIds, Map<String, Document> stored) {
+        if (changedIds.isEmpty()) return;
+        List<Product> changed = new ArrayList<>(changedIds.size());
+        for (String id : changedIds) {
+            Document product = stored.get(id);
+            product.remove("bulkUpdates");
+            changed.add(mongoTemplate.getConverter().read(Product.class, product));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(changed));
+    }
+
+    private static AggregationUpdate toPipeline(BulkProductUpdateDTO update, String token, int op) {
+        AggregationUpdate pipeline = AggregationUpdate.update();
+        // First stage, so `changed` compares against the values before this op
+        pipeline.set(TAG + token).toValue(new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$" + TAG + token, List.of())),
+                List.of(new Document("op", op).append("changed", changedExpression(update))))));
+        if (update.getPrice() != null) pipeline.set("price").toValue(update.getPrice());
+        if (update.getDiscount() != null) pipeline.set("discount").toValue(update.getDiscount());
+        if (update.getStockQuantity() != null) {
+            pipeline.set("stockQuantity").toValue(update.getStockQuantity());
+        } else if (update.getStockDelta() != null) {
+            pipeline.set("stockQuantity").toValue(
+                    ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull("stockQuantity").then(0)).add(update.getStockDelta()));
+        }
+        if (update.getStockQuantity() != null || update.getStockDelta() != null) {
+            // Separate stage, so it sees the new stockQuantity
+            pipeline.set("status").toValue(
+                    ConditionalOperators.when(ComparisonOperators.Gt.valueOf("stockQuantity").greaterThanValue(0))
+                            .then(Product.IN_STOCK)
+                            .otherwise(Product.OUT_OF_STOCK));
+        }
+        return pipeline;
+    }
+
+    // True when the stored document differs from what the op sets (a non-zero delta always does)
+    private static Object changedExpression(BulkProductUpdateDTO update) {
+        if (update.getStockDelta() != null && update.getStockDelta() != 0) return true;
+        List<Document> differs = new ArrayList<>();
+        if (update.getPrice() != null) differs.add(new Document("$ne", List.of("$price", update.getPrice())));
+        if (update.getDiscount() != null) differs.add(new Document("$ne", List.of("$discount", update.getDiscount())));
+        if (update.getStockQuantity() != null) differs.add(new Document("$ne", List.of("$stockQuantity", update.getStockQuantity())));
+        return differs.isEmpty() ? false : new Document("$or", differs);
+    }
+
+    private static boolean isDecrement(BulkProductUpdateDTO update) {
+        return update.getStockDelta() != null && update.getStockDelta() < 0;
+    }
+
+    private static String validate(BulkProductUpdateDTO update) {
+        if (update.getId() == null || update.getId().isBlank()) return "id is required";
+        if (update.getStockQuantity() != null && update.getStockDelta() != null) return "Send either stockQuantity or stockDelta, not both";
+        if (update.getPrice() == null && update.getDiscount() == null
+                && update.getStockQuantity() == null && update.getStockDelta() == null) return "Nothing to update";
+        if (update.getPrice() != null && update.getPrice() < 0) return "price must not be negative";
+        if (update.getDiscount() != null && update.getDiscount() < 0) return "discount must not be negative";
+        if (update.getStockQuantity() != null && update.getStockQuantity() < 0) return "stockQuantity must not be negative";
+        return null;
+    }
+}
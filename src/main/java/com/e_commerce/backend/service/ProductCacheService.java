@@ -0,0 +1,124 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of ProductRepository for read-only lookups by id.
+ * Entries are bounded by count and expire after a TTL; every ProductChangedEvent evicts
+ * the affected ids. Hit/miss/eviction counters are published as cache.* metrics under
+ * the name "products" on the actuator.
+ *
+ * Concurrent misses for the same id share a single repository call (see SingleFlight), as long
+ * as they saw the same product version; a miss after a write never joins a load from before it.
+ *
+ * Returned products are shared instances: callers that want to modify a product must
+ * load it from the repository instead.
+ */
+@Service
+public class ProductCacheService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductVersionService versionService;
+
+    @Value("${product.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${product.cache.ttl:10m}")
+    private Duration ttl;
+
+    private Cache<String, Product> cache;
+
+    private final SingleFlight<LoadKey, Optional<Product>> loads = new SingleFlight<>();
+
+    // Bumped on every invalidation so a load that raced with a write does not re-cache stale data
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public Optional<Product> findById(String id) {
+        Product cached = cache.getIfPresent(id);
+        if (cached != null) return Optional.of(cached);
+
+        return loads.load(new LoadKey(id, versionService.productVersion(id)), () -> {
+            long generation = invalidations.get();
+            Optional<Product> loaded = productRepository.findById(id);
+            if (generation == invalidations.get()) {
+                loaded.ifPresent(p -> cache.put(id, p));
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Cached products plus one findAllById round trip for the misses, in the order of `ids`.
+     * Unknown ids are skipped.
+     */
+    public List<Product> findAllById(Collection<String> ids) {
+        Map<String, Product> found = new LinkedHashMap<>(cache.getAllPresent(ids));
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            if (!found.containsKey(id)) missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            long generation = invalidations.get();
+            for (Product product : productRepository.findAllById(missing)) {
+                if (generation == invalidations.get()) cache.put(product.getId(), product);
+                found.put(product.getId(), product);
+            }
+        }
+
+        List<Product> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Product product = found.get(id);
+            if (product != null) result.add(product);
+        }
+        return result;
+    }
+
+    // Runs before ProductVersionService bumps the versions the ETags are built from
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(event.productIds());
+    }
+
+    private record LoadKey(String id, long version) {
+    }
+}
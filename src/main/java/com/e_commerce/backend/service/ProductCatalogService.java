@@ -0,0 +1,227 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.PageResponseDTO;
+import com.e_commerce.backend.dto.ProductFilterDTO;
+import com.e_commerce.backend.entity.Product;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keyset (cursor) pagination over the product catalog.
+ * Each page continues from the sort key and _id of the last product of the previous page,
+ * so the cost of a page does not grow with how deep the client has scrolled.
+ */
+@Service
+public class ProductCatalogService {
+
+    public static final int DEFAULT_LIMIT = 24;
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductVersionService versionService;
+
+    // Identical listing requests arriving together at the same catalog version share one query
+    private final SingleFlight<PageKey, PageResponseDTO<Product>> pageLoads = new SingleFlight<>();
+    private final SingleFlight<PageKey, PageResponseDTO<Map<String, Object>>> projectedPageLoads = new SingleFlight<>();
+
+    public PageResponseDTO<Product> findPage(ProductFilterDTO filter) {
+        return pageLoads.load(new PageKey(filter, versionService.catalogVersion()), () -> queryPage(filter));
+    }
+
+    /**
+     * Same page as findPage, but only the projected fields are read from Mongo and returned.
+     */
+    public PageResponseDTO<Map<String, Object>> findPage(ProductFilterDTO filter, ProductProjection projection) {
+        return projectedPageLoads.load(new PageKey(filter, versionService.catalogVersion()), () -> queryProjectedPage(filter, projection));
+    }
+
+    /**
+     * The whole catalog (legacy unpaged listing) with a field projection.
+     */
+    public List<Map<String, Object>> findAll(ProductProjection projection) {
+        Query query = new Query();
+        projection.applyTo(query);
+        return findDocuments(query).stream().map(projection::toResponse).toList();
+    }
+
+    public Optional<Map<String, Object>> findById(String id, ProductProjection projection) {
+        Query query = new Query(Criteria.where("id").is(id));
+        projection.applyTo(query);
+        return findDocuments(query).stream().findFirst().map(projection::toResponse);
+    }
+
+    // Uncoalesced; CatalogSnapshotService rebuilds with this so a snapshot never reuses an older load
+    PageResponseDTO<Product> queryPage(ProductFilterDTO filter) {
+        SortKey sortKey = SortKey.from(filter.getSort());
+        int limit = clampLimit(filter.getLimit());
+
+        List<Product> products = mongoTemplate.find(pageQuery(filter, sortKey, limit), Product.class);
+        String nextCursor = null;
+        if (products.size() > limit) {
+            products = new ArrayList<>(products.subList(0, limit));
+            Product last = products.get(products.size() - 1);
+            nextCursor = encodeCursor(sortKey.valueOf(last), last.getId());
+        }
+        return new PageResponseDTO<>(products, nextCursor);
+    }
+
+    private PageResponseDTO<Map<String, Object>> queryProjectedPage(ProductFilterDTO filter, ProductProjection projection) {
+        SortKey sortKey = SortKey.from(filter.getSort());
+        int limit = clampLimit(filter.getLimit());
+
+        Query query = pageQuery(filter, sortKey, limit);
+        projection.applyTo(query, sortKey.field); // the sort key is needed to build the next cursor
+        List<Document> documents = findDocuments(query);
+
+        String nextCursor = null;
+        if (documents.size() > limit) {
+            documents = documents.subList(0, limit);
+            Document last = documents.get(documents.size() - 1);
+            Object value = sortKey.field == null ? null : last.get(sortKey.field);
+            nextCursor = encodeCursor(value instanceof Number n ? n.doubleValue() : null, last.get("_id").toString());
+        }
+        return new PageResponseDTO<>(documents.stream().map(projection::toResponse).toList(), nextCursor);
+    }
+
+    // Query is mapped against Product (id -> _id, ObjectId conversion) but rows come back as raw documents
+    private List<Document> findDocuments(Query query) {
+        return mongoTemplate.query(Product.class).as(Document.class).matching(query).all();
+    }
+
+    private Query pageQuery(ProductFilterDTO filter, SortKey sortKey, int limit) {
+        List<Criteria> clauses = new ArrayList<>(filterClauses(filter));
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            clauses.add(afterCursor(sortKey, decodeCursor(filter.getCursor(), sortKey)));
+        }
+
+        Query query = new Query();
+        if (!clauses.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(clauses));
+        }
+        return query.with(sortKey.sort()).limit(limit + 1); // one extra row tells us whether another page exists
+    }
+
+    private List<Criteria> filterClauses(ProductFilterDTO filter) {
+        List<Criteria> clauses = new ArrayList<>();
+        if (filter.getMainCategory() != null) clauses.add(Criteria.where("mainCategory").is(filter.getMainCategory()));
+        if (filter.getSubCategory() != null) clauses.add(Criteria.where("subCategory").is(filter.getSubCategory()));
+        if (filter.getBrandName() != null) clauses.add(Criteria.where("brandName").is(filter.getBrandName()));
+        if (filter.getStatus() != null) clauses.add(Criteria.where("status").is(filter.getStatus()));
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (filter.getMinPrice() != null) price = price.gte(filter.getMinPrice());
+            if (filter.getMaxPrice() != null) price = price.lte(filter.getMaxPrice());
+            clauses.add(price);
+        }
+        return clauses;
+    }
+
+    /**
+     * Builds the "strictly after the last row" condition for the given sort order.
+     * MongoDB sorts null/missing values first in ascending order, so they are handled explicitly.
+     */
+    private Criteria afterCursor(SortKey sortKey, Cursor cursor) {
+        if (sortKey.field == null) {
+            return Criteria.where("id").lt(cursor.lastId);
+        }
+        String field = sortKey.field;
+        if (sortKey.ascending) {
+            if (cursor.value == null) {
+                return new Criteria().orOperator(
+                        Criteria.where(field).is(null).and("id").gt(cursor.lastId),
+                        Criteria.where(field).ne(null));
+            }
+            return new Criteria().orOperator(
+                    Criteria.where(field).gt(cursor.value),
+                    Criteria.where(field).is(cursor.value).and("id").gt(cursor.lastId));
+        }
+        if (cursor.value == null) {
+            return Criteria.where(field).is(null).and("id").lt(cursor.lastId);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).lt(cursor.value),
+                Criteria.where(field).is(cursor.value).and("id").lt(cursor.lastId),
+                Criteria.where(field).is(null));
+    }
+
+    private int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    // --- Cursor encoding: base64url("<sortValue>|<id>"), opaque to clients ---
+
+    private String encodeCursor(Double value, String lastId) {
+        String raw = (value == null ? "" : value.toString()) + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String token, SortKey sortKey) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String value = raw.substring(0, sep);
+            String lastId = raw.substring(sep + 1);
+            if (lastId.isEmpty()) throw new IllegalArgumentException("Invalid cursor");
+            return new Cursor(value.isEmpty() || sortKey.field == null ? null : Double.valueOf(value), lastId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(Double value, String lastId) {
+    }
+
+    private record PageKey(ProductFilterDTO filter, long catalogVersion) {
+    }
+
+    private enum SortKey {
+        NEWEST(null, false),
+        PRICE_ASC("price", true),
+        PRICE_DESC("price", false),
+        RATING("averageRating", false);
+
+        private final String field;
+        private final boolean ascending;
+
+        SortKey(String field, boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+
+        static SortKey from(String sort) {
+            if (sort == null || sort.isBlank()) return NEWEST;
+            try {
+                return SortKey.valueOf(sort.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sort: " + sort);
+            }
+        }
+
+        Sort sort() {
+            Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+            if (field == null) return Sort.by(direction, "id");
+            return Sort.by(direction, field).and(Sort.by(direction, "id"));
+        }
+
+        Double valueOf(Product product) {
+            if (field == null) return null;
+            return "price".equals(field) ? product.getPrice() : product.getAverageRating();
+        }
+    }
+}
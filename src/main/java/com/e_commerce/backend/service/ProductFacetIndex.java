@@ -0,0 +1,239 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.FacetResultDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory facet index over the catalog.
+ * Every product gets a small integer ordinal; each facet value maps to a compressed bitmap
+ * of the ordinals carrying that value, so filter intersections and sidebar counts are
+ * bitmap operations instead of Mongo queries.
+ */
+@Service
+public class ProductFacetIndex {
+
+    public static final Map<String, Function<Product, String>> FACETS;
+
+    static {
+        Map<String, Function<Product, String>> facets = new LinkedHashMap<>();
+        facets.put("mainCategory", Product::getMainCategory);
+        facets.put("subCategory", Product::getSubCategory);
+        facets.put("brandName", Product::getBrandName);
+        facets.put("color", Product::getColor);
+        facets.put("material", Product::getMaterial);
+        facets.put("size", Product::getSize);
+        FACETS = Collections.unmodifiableMap(facets);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    // Changes seen while a rebuild streams Mongo; null when no rebuild is running
+    private List<ProductChangedEvent> changedDuringRebuild;
+
+    /**
+     * Full rebuild from Mongo. Only the facet fields are loaded.
+     * Changes that arrive while the catalog is streamed are replayed onto the new state
+     * before it is swapped in, so the stream may have missed them without losing them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Query query = new Query();
+        FACETS.keySet().forEach(field -> query.fields().include(field));
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = new State();
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(fresh::put);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild.forEach(event -> apply(fresh, event));
+            changedDuringRebuild = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(state, event);
+            if (changedDuringRebuild != null) changedDuringRebuild.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(State target, ProductChangedEvent event) {
+        event.saved().forEach(target::put);
+        event.deletedIds().forEach(target::remove);
+    }
+
+    /**
+     * Counts per facet value for the given selection. Values within one facet are OR-ed,
+     * facets are AND-ed. Counts for a facet ignore that facet's own selection so the
+     * sidebar still shows the alternatives the shopper can switch to.
+     */
+    public FacetResultDTO query(Map<String, List<String>> selection) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> selected = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : selection.entrySet()) {
+                if (FACETS.containsKey(entry.getKey()) && !entry.getValue().isEmpty()) {
+                    selected.put(entry.getKey(), state.union(entry.getKey(), entry.getValue()));
+                }
+            }
+
+            RoaringBitmap all = intersect(state.live, selected.values());
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS.keySet()) {
+                List<RoaringBitmap> others = new ArrayList<>();
+                selected.forEach((name, bitmap) -> {
+                    if (!name.equals(facet)) others.add(bitmap);
+                });
+                RoaringBitmap base = intersect(state.live, others);
+
+                Map<String, Integer> valueCounts = new LinkedHashMap<>();
+                state.postings.get(facet).forEach((value, bitmap) -> {
+                    int count = RoaringBitmap.andCardinality(base, bitmap);
+                    if (count > 0) valueCounts.put(value, count);
+                });
+                counts.put(facet, valueCounts);
+            }
+            return new FacetResultDTO(all.getLongCardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether some live product currently has exactly this value for the facet.
+     */
+    public boolean contains(String facet, String value) {
+        if (value == null || !value.equals(State.normalize(value))) return false;
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> facetPostings = state.postings.get(facet);
+            return facetPostings != null && facetPostings.containsKey(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap live, Collection<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = live.clone();
+        for (RoaringBitmap bitmap : bitmaps) {
+            result.and(bitmap);
+        }
+        return result;
+    }
+
+    /**
+     * Mutable index state; guarded by the outer read/write lock.
+     */
+    private static class State {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String[]> valuesByOrdinal = new ArrayList<>();
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final Map<String, Map<String, RoaringBitmap>> postings = new LinkedHashMap<>();
+
+        State() {
+            FACETS.keySet().forEach(facet -> postings.put(facet, new HashMap<>()));
+        }
+
+        void put(Product product) {
+            remove(product.getId());
+            int ordinal = freeOrdinals.isEmpty() ? valuesByOrdinal.size() : freeOrdinals.pop();
+            String[] values = new String[FACETS.size()];
+            int i = 0;
+            for (Map.Entry<String, Function<Product, String>> facet : FACETS.entrySet()) {
+                String value = normalize(facet.getValue().apply(product));
+                values[i++] = value;
+                if (value != null) {
+                    postings.get(facet.getKey()).computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+                }
+            }
+            if (ordinal == valuesByOrdinal.size()) {
+                valuesByOrdinal.add(values);
+            } else {
+                valuesByOrdinal.set(ordinal, values);
+            }
+            ordinals.put(product.getId(), ordinal);
+            live.add(ordinal);
+        }
+
+        void remove(String productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) return;
+            String[] values = valuesByOrdinal.get(ordinal);
+            int i = 0;
+            for (String facet : FACETS.keySet()) {
+                String value = values[i++];
+                if (value == null) continue;
+                Map<String, RoaringBitmap> facetPostings = postings.get(facet);
+                RoaringBitmap bitmap = facetPostings.get(value);
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty()) facetPostings.remove(value);
+            }
+            valuesByOrdinal.set(ordinal, null);
+            live.remove(ordinal);
+            freeOrdinals.push(ordinal);
+        }
+
+        RoaringBitmap union(String facet, List<String> values) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (String value : values) {
+                RoaringBitmap bitmap = postings.get(facet).get(normalize(value));
+                if (bitmap != null) result.or(bitmap);
+            }
+            return result;
+        }
+
+        private static String normalize(String value) {
+            if (value == null || value.isBlank()) return null;
+            return value.trim();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.ImportReportDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of products from NDJSON (one product object per line) or CSV
+ * (header row with Product field names, images separated by '|').
+ *
+ * Rows are validated one by one and written in unordered bulk batches, so memory stays
+ * constant regardless of file size. Rows with an id are upserted: only the fields present in
+ * the row are set (plus status/imageMetadata when stock/images are given), so images, ratings
+ * and anything else the row leaves out keep their stored values. The rest are inserted.
+ */
+@Service
+public class ProductImportService {
+
+    public static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Fields an import row may set on an existing product; status and imageMetadata are derived
+    private static final Set<String> IMPORTED_FIELDS = Set.of("name", "description", "mainCategory", "subCategory",
+            "type", "size", "color", "material", "brandName", "stockQuantity", "price", "discount", "images");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    public ImportReportDTO importNdjson(InputStream in) throws IOException {
+        return run(in, false);
+    }
+
+    public ImportReportDTO importCsv(InputStream in) throws IOException {
+        return run(in, true);
+    }
+
+    private ImportReportDTO run(InputStream in, boolean csv) throws IOException {
+        long start = System.nanoTime();
+        ImportReportDTO report = new ImportReportDTO();
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String[] header = null;
+            if (csv) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) return finish(report, start);
+                header = parseCsvLine(headerLine).toArray(new String[0]);
+            }
+
+            String line;
+            int rowNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                rowNumber++;
+                report.setRows(rowNumber);
+                try {
+                    Set<String> fields = new HashSet<>();
+                    Product product = csv ? fromCsv(header, parseCsvLine(line), fields) : fromJson(line, fields);
+                    validate(product);
+                    product.setStatus(Product.statusFor(product.getStockQuantity()));
+                    batch.add(new Row(rowNumber, product, fields));
+                } catch (RuntimeException e) {
+                    fail(report, rowNumber, e.getMessage());
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) flush(batch, report);
+        return finish(report, start);
+    }
+
+    private void flush(List<Row> batch, ImportReportDTO report) {
+        // Image metadata for the whole batch in one query; images without a record get a null
+        // entry, keeping imageMetadata aligned with images
+        Set<String> imageUrls = new HashSet<>();
+        batch.forEach(row -> imageUrls.addAll(row.product.getImages()));
+        Map<String, Product.ImageInfo> imageMetadata = imageMetadataService.findAll(imageUrls);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Row row : batch) {
+            Product product = row.product;
+            product.setImageMetadata(product.getImages().stream().map(imageMetadata::get).collect(Collectors.toCollection(ArrayList::new)));
+            if (product.getId() == null || product.getId().isBlank()) {
+                product.setId(new ObjectId().toHexString()); // known up front so events and error rows can refer to it
+                row.upsert = false;
+                bulk.insert(product);
+            } else {
+                row.upsert = true;
+                bulk.upsert(new Query(Criteria.where("id").is(product.getId())), toUpdate(product, row.fields));
+            }
+        }
+
+        Set<Integer> failedOps = new HashSet<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failedOps.add(error.getIndex());
+                fail(report, batch.get(error.getIndex()).number, error.getMessage());
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(row -> fail(report, row.number, e.getMessage()));
+            return;
+        }
+
+        List<Product> written = new ArrayList<>(batch.size());
+        List<String> upsertedIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (failedOps.contains(i)) continue;
+            Row row = batch.get(i);
+            if (row.upsert) {
+                report.setUpserted(report.getUpserted() + 1);
+                upsertedIds.add(row.product.getId());
+            } else {
+                report.setInserted(report.getInserted() + 1);
+                written.add(row.product);
+            }
+        }
+        if (!upsertedIds.isEmpty()) {
+            // Upserts only set some fields; listeners need the merged documents
+            written.addAll(mongoTemplate.find(new Query(Criteria.where("id").in(upsertedIds)), Product.class));
+        }
+        if (!written.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.saved(written));
+        }
+    }
+
+    // Sets only what the row provided; defaults (empty images, out of stock) only apply when the upsert inserts
+    private Update toUpdate(Product product, Set<String> fields) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(product, document); // null fields are skipped
+        Update update = new Update();
+        for (String field : fields) {
+            if (IMPORTED_FIELDS.contains(field) && document.containsKey(field)) update.set(field, document.get(field));
+        }
+        if (fields.contains("stockQuantity")) {
+            update.set("status", document.get("status"));
+        } else {
+            update.setOnInsert("status", product.getStatus());
+        }
+        if (fields.contains("images")) {
+            update.set("imageMetadata", document.get("imageMetadata"));
+        } else {
+            update.setOnInsert("images", List.of());
+            update.setOnInsert("imageMetadata", List.of());
+        }
+        return update;
+    }
+
+    // Remembers which properties the line actually has, so an upsert doesn't touch the others
+    private Product fromJson(String line, Set<String> fields) {
+        Map<?, ?> values = jsonMapper.readValue(line, Map.class);
+        values.forEach((field, value) -> {
+            if (value != null) fields.add(field.toString());
+        });
+        return jsonMapper.convertValue(values, Product.class);
+    }
+
+    private static void validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) throw new IllegalArgumentException("name is required");
+        if (product.getPrice() == null) throw new IllegalArgumentException("price is required");
+        if (product.getPrice() < 0) throw new IllegalArgumentException("price must not be negative");
+        if (product.getStockQuantity() != null && product.getStockQuantity() < 0) throw new IllegalArgumentException("stockQuantity must not be negative");
+        if (product.getDiscount() != null && product.getDiscount() < 0) throw new IllegalArgumentException("discount must not be negative");
+        if (product.getImages() == null) product.setImages(new ArrayList<>());
+        // Ratings are owned by the review flow, never by imports
+        product.setAverageRating(null);
+        product.setReviewCount(null);
+    }
+
+    private static void fail(ImportReportDTO report, int row, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportReportDTO.RowError(row, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private static ImportReportDTO finish(ImportReportDTO report, long start) {
+        long elapsedNanos = System.nanoTime() - start;
+        report.setElapsedMs(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getRows() * 1_000_000_000.0 / elapsedNanos);
+        return report;
+    }
+
+    // --- CSV ---
+
+    private static Product fromCsv(String[] header, List<String> values, Set<String> fields) {
+        if (values.size() > header.length) throw new IllegalArgumentException("Too many columns");
+        Product product = new Product();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) continue;
+            String column = header[i].trim();
+            try {
+                switch (column) {
+                    case "id" -> product.setId(value);
+                    case "name" -> product.setName(value);
+                    case "description" -> product.setDescription(value);
+                    case "mainCategory" -> product.setMainCategory(value);
+                    case "subCategory" -> product.setSubCategory(value);
+                    case "type" -> product.setType(value);
+                    case "size" -> product.setSize(value);
+                    case "color" -> product.setColor(value);
+                    case "material" -> product.setMaterial(value);
+                    case "brandName" -> product.setBrandName(value);
+                    case "stockQuantity" -> product.setStockQuantity(Integer.valueOf(value));
+                    case "price" -> product.setPrice(Double.valueOf(value));
+                    case "discount" -> product.setDiscount(Double.valueOf(value));
+                    case "images" -> product.setImages(new ArrayList<>(Arrays.asList(value.split("\\|"))));
+                    default -> throw new IllegalArgumentException("Unknown column: " + column);
+                }
+                fields.add(column);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in column " + column + ": " + value);
+            }
+        }
+        return product;
+    }
+
+    // RFC 4180 style: quoted fields may contain commas and doubled quotes (not line breaks)
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted field");
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static class Row {
+        private final int number;
+        private final Product product;
+        private final Set<String> fields; // properties present in the input row
+        private boolean upsert;
+
+        Row(int number, Product product, Set<String> fields) {
+            this.number = number;
+            this.product = product;
+            this.fields = fields;
+        }
+    }
+}
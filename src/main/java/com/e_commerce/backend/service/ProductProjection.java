@@ -0,0 +1,90 @@
+package com.e_commerce.backend.service;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldset for product responses (?fields=name,price or ?fields=card).
+ * Turned into a Mongo field projection, so unrequested fields are neither read from
+ * the database nor serialized.
+ */
+public final class ProductProjection {
+
+    public static final List<String> FIELDS = List.of(
+            "id", "name", "description", "mainCategory", "subCategory", "type", "size", "color", "material",
+            "brandName", "stockQuantity", "price", "discount", "images", "status", "averageRating", "reviewCount",
+            "imageMetadata");
+
+    // What listing cards render: the first image only, with its size and placeholder
+    private static final ProductProjection CARD = new ProductProjection(
+            new LinkedHashSet<>(List.of("id", "name", "price", "discount", "images", "imageMetadata", "averageRating")), true);
+
+    private final Set<String> fields;
+    private final boolean firstImageOnly;
+
+    private ProductProjection(Set<String> fields, boolean firstImageOnly) {
+        this.fields = fields;
+        this.firstImageOnly = firstImageOnly;
+    }
+
+    /**
+     * Parses the ?fields= value; returns null when no projection was requested.
+     */
+    public static ProductProjection parse(String spec) {
+        if (spec == null || spec.isBlank()) return null;
+        if ("card".equalsIgnoreCase(spec.trim())) return CARD;
+
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add("id");
+        for (String field : spec.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) continue;
+            if (!FIELDS.contains(name)) throw new IllegalArgumentException("Unknown field: " + name);
+            fields.add(name);
+        }
+        return new ProductProjection(fields, false);
+    }
+
+    public void applyTo(Query query) {
+        fields.forEach(field -> query.fields().include(field));
+        if (firstImageOnly) {
+            query.fields().slice("images", 1);
+            if (fields.contains("imageMetadata")) query.fields().slice("imageMetadata", 1);
+        }
+    }
+
+    /**
+     * Same as applyTo, plus whatever the caller needs internally (e.g. the sort key for a cursor).
+     */
+    public void applyTo(Query query, String extraField) {
+        applyTo(query);
+        if (extraField != null) query.fields().include(extraField);
+    }
+
+    /**
+     * Raw projected document -> response map with only the requested fields, `_id` exposed as `id`.
+     */
+    public Map<String, Object> toResponse(Document document) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (String field : fields) {
+            if ("id".equals(field)) {
+                Object id = document.get("_id");
+                response.put("id", id == null ? null : id.toString());
+            } else {
+                response.put(field, document.get(field));
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return (firstImageOnly ? "card:" : "") + String.join(",", fields);
+    }
+}
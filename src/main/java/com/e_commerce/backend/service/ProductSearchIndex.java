@@ -0,0 +1,455 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process inverted index over product name, description, brandName and type, ranked with BM25.
+ *
+ * Query syntax: plain words must all match (after stemming), "quoted words" must match as a phrase,
+ * and a trailing * makes a word a prefix query (e.g. penc*).
+ *
+ * The analyzed form of every product is snapshotted to disk so a restart only re-tokenizes
+ * products whose text changed since the snapshot was written.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int FIELD_GAP = 100;     // keeps phrases from matching across fields
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // Field boosts are applied to term frequency, so a name match outweighs a description match
+    private static final float NAME_BOOST = 3f;
+    private static final float BRAND_BOOST = 2f;
+    private static final float TYPE_BOOST = 2f;
+    private static final float DESCRIPTION_BOOST = 1f;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${search.index.snapshot-path:data/search-index.bin}")
+    private String snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, DocEntry> docs = new HashMap<>();                       // productId -> analyzed doc
+    private final TreeMap<String, Map<String, Posting>> postings = new TreeMap<>();    // term -> productId -> posting
+    private long totalLength;
+    // Changes seen while a rebuild streams Mongo; null when no rebuild is running
+    private List<ProductChangedEvent> changedDuringRebuild;
+
+    /**
+     * Loads the disk snapshot and reconciles it with Mongo: unchanged products reuse their
+     * stored analysis, changed or new ones are re-tokenized, vanished ones are dropped.
+     * Changes that arrive while the catalog is streamed are replayed onto the new docs
+     * before they are swapped in, as in ProductFacetIndex.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<String, DocEntry> snapshot = readSnapshot();
+
+        Query query = new Query();
+        query.fields().include("name").include("description").include("brandName").include("type");
+
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, DocEntry> fresh = new HashMap<>();
+        int reanalyzed = 0;
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                long hash = contentHash(product);
+                DocEntry cached = snapshot.get(product.getId());
+                if (cached != null && cached.hash == hash) {
+                    fresh.put(product.getId(), cached);
+                } else {
+                    fresh.put(product.getId(), analyze(product, hash));
+                    reanalyzed++;
+                }
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (ProductChangedEvent event : changedDuringRebuild) {
+                for (Product product : event.saved()) {
+                    long hash = contentHash(product);
+                    DocEntry existing = fresh.get(product.getId());
+                    if (existing == null || existing.hash != hash) {
+                        fresh.put(product.getId(), analyze(product, hash));
+                        reanalyzed++;
+                    }
+                }
+                event.deletedIds().forEach(fresh::remove);
+            }
+            changedDuringRebuild = null;
+            docs.clear();
+            postings.clear();
+            totalLength = 0;
+            fresh.values().forEach(this::addDoc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (reanalyzed > 0 || fresh.size() != snapshot.size()) {
+            writeSnapshot();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : event.saved()) {
+                long hash = contentHash(product);
+                DocEntry existing = docs.get(product.getId());
+                if (existing != null && existing.hash == hash) continue;
+                removeDoc(product.getId());
+                addDoc(analyze(product, hash));
+            }
+            event.deletedIds().forEach(this::removeDoc);
+            if (changedDuringRebuild != null) changedDuringRebuild.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked product ids for the query, best first.
+     */
+    public SearchHits search(String queryText, int limit) {
+        ParsedQuery parsed = ParsedQuery.parse(queryText);
+        if (parsed.isEmpty()) return new SearchHits(0, List.of());
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String term : parsed.terms) {
+                scores = combine(scores, scoreTerm(term));
+            }
+            for (String prefix : parsed.prefixes) {
+                scores = combine(scores, scorePrefix(prefix));
+            }
+            for (List<String> phrase : parsed.phrases) {
+                scores = combine(scores, scorePhrase(phrase));
+            }
+
+            PriorityQueue<Map.Entry<String, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) top.poll();
+            }
+            List<String> ids = new ArrayList<>(top.size());
+            while (!top.isEmpty()) ids.add(0, top.poll().getKey());
+            return new SearchHits(scores.size(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record SearchHits(int total, List<String> productIds) {
+    }
+
+    // --- Scoring ---
+
+    // AND semantics: a product must match every clause; scores add up.
+    private static Map<String, Double> combine(Map<String, Double> acc, Map<String, Double> clause) {
+        if (acc == null) return clause;
+        Map<String, Double> result = new HashMap<>();
+        acc.forEach((id, score) -> {
+            Double other = clause.get(id);
+            if (other != null) result.put(id, score + other);
+        });
+        return result;
+    }
+
+    private Map<String, Double> scoreTerm(String term) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Posting> termPostings = postings.get(term);
+        if (termPostings == null) return scores;
+        double idf = idf(termPostings.size());
+        termPostings.forEach((id, posting) -> scores.put(id, bm25(idf, posting.tf, docs.get(id).length)));
+        return scores;
+    }
+
+    // Postings hold stemmed terms, so the prefix is scanned as typed ("glas*" -> glass) and
+    // stemmed ("pencils*" -> pencil, "canvas*" -> canva); a product scores its best expansion.
+    private Map<String, Double> scorePrefix(String prefix) {
+        Map<String, Double> scores = new HashMap<>();
+        String stemmed = TextAnalyzer.stem(prefix);
+        scanPrefix(prefix, scores);
+        if (!stemmed.equals(prefix)) scanPrefix(stemmed, scores);
+        return scores;
+    }
+
+    private void scanPrefix(String prefix, Map<String, Double> scores) {
+        int expansions = 0;
+        for (Map.Entry<String, Map<String, Posting>> entry : postings.subMap(prefix, prefix + Character.MAX_VALUE).entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) break;
+            double idf = idf(entry.getValue().size());
+            entry.getValue().forEach((id, posting) ->
+                    scores.merge(id, bm25(idf, posting.tf, docs.get(id).length), Math::max));
+        }
+    }
+
+    private Map<String, Double> scorePhrase(List<String> phrase) {
+        Map<String, Double> scores = new HashMap<>();
+        List<Map<String, Posting>> termPostings = new ArrayList<>();
+        for (String term : phrase) {
+            Map<String, Posting> p = postings.get(term);
+            if (p == null) return scores;
+            termPostings.add(p);
+        }
+
+        double idf = 0;
+        for (Map<String, Posting> p : termPostings) idf += idf(p.size());
+
+        for (Map.Entry<String, Posting> first : termPostings.get(0).entrySet()) {
+            String id = first.getKey();
+            int matches = 0;
+            for (int start : first.getValue().positions) {
+                boolean all = true;
+                for (int i = 1; i < phrase.size() && all; i++) {
+                    Posting next = termPostings.get(i).get(id);
+                    all = next != null && Arrays.binarySearch(next.positions, start + i) >= 0;
+                }
+                if (all) matches++;
+            }
+            if (matches > 0) scores.put(id, bm25(idf, matches, docs.get(id).length));
+        }
+        return scores;
+    }
+
+    private double idf(int docFreq) {
+        int n = docs.size();
+        return Math.log(1 + (n - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    private double bm25(double idf, double tf, int docLength) {
+        double avgLength = docs.isEmpty() ? 1 : (double) totalLength / docs.size();
+        return idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * docLength / avgLength));
+    }
+
+    // --- Index maintenance (callers hold the write lock) ---
+
+    private void addDoc(DocEntry doc) {
+        docs.put(doc.productId, doc);
+        totalLength += doc.length;
+        for (int i = 0; i < doc.terms.length; i++) {
+            postings.computeIfAbsent(doc.terms[i], t -> new HashMap<>())
+                    .put(doc.productId, new Posting(doc.tfs[i], doc.positions[i]));
+        }
+    }
+
+    private void removeDoc(String productId) {
+        DocEntry doc = docs.remove(productId);
+        if (doc == null) return;
+        totalLength -= doc.length;
+        for (String term : doc.terms) {
+            Map<String, Posting> termPostings = postings.get(term);
+            if (termPostings == null) continue;
+            termPostings.remove(productId);
+            if (termPostings.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static DocEntry analyze(Product product, long hash) {
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        Map<String, Float> tfs = new HashMap<>();
+        int[] position = {0};
+        addField(product.getName(), NAME_BOOST, positions, tfs, position);
+        addField(product.getBrandName(), BRAND_BOOST, positions, tfs, position);
+        addField(product.getType(), TYPE_BOOST, positions, tfs, position);
+        addField(product.getDescription(), DESCRIPTION_BOOST, positions, tfs, position);
+
+        int size = positions.size();
+        String[] terms = new String[size];
+        float[] termTfs = new float[size];
+        int[][] termPositions = new int[size][];
+        int i = 0;
+        int length = 0;
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            terms[i] = entry.getKey();
+            termTfs[i] = tfs.get(entry.getKey());
+            termPositions[i] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            length += termPositions[i].length;
+            i++;
+        }
+        return new DocEntry(product.getId(), hash, length, terms, termTfs, termPositions);
+    }
+
+    private static void addField(String text, float boost, Map<String, List<Integer>> positions,
+                                 Map<String, Float> tfs, int[] position) {
+        if (text == null || text.isBlank()) return;
+        for (String term : TextAnalyzer.analyze(text)) {
+            positions.computeIfAbsent(term, t -> new ArrayList<>()).add(position[0]++);
+            tfs.merge(term, boost, Float::sum);
+        }
+        position[0] += FIELD_GAP;
+    }
+
+    private static long contentHash(Product product) {
+        long hash = 1125899906842597L;
+        for (String field : new String[]{product.getName(), product.getBrandName(), product.getType(), product.getDescription()}) {
+            String value = field == null ? "\u0000" : field;
+            for (int i = 0; i < value.length(); i++) hash = 31 * hash + value.charAt(i);
+            hash = 31 * hash + 0x1F;
+        }
+        return hash;
+    }
+
+    // --- Snapshot persistence ---
+
+    @PreDestroy
+    public void writeSnapshot() {
+        Path target = Paths.get(snapshotPath);
+        lock.readLock().lock();
+        try {
+            if (target.getParent() != null) Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(docs.size());
+                for (DocEntry doc : docs.values()) {
+                    out.writeUTF(doc.productId);
+                    out.writeLong(doc.hash);
+                    out.writeInt(doc.length);
+                    out.writeInt(doc.terms.length);
+                    for (int i = 0; i < doc.terms.length; i++) {
+                        out.writeUTF(doc.terms[i]);
+                        out.writeFloat(doc.tfs[i]);
+                        out.writeInt(doc.positions[i].length);
+                        for (int p : doc.positions[i]) out.writeInt(p);
+                    }
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not write search index snapshot: " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, DocEntry> readSnapshot() {
+        Map<String, DocEntry> snapshot = new HashMap<>();
+        Path source = Paths.get(snapshotPath);
+        if (!Files.exists(source)) return snapshot;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(source))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) return snapshot;
+            int docCount = in.readInt();
+            for (int d = 0; d < docCount; d++) {
+                String productId = in.readUTF();
+                long hash = in.readLong();
+                int length = in.readInt();
+                int termCount = in.readInt();
+                String[] terms = new String[termCount];
+                float[] tfs = new float[termCount];
+                int[][] positions = new int[termCount][];
+                for (int i = 0; i < termCount; i++) {
+                    terms[i] = in.readUTF();
+                    tfs[i] = in.readFloat();
+                    positions[i] = new int[in.readInt()];
+                    for (int p = 0; p < positions[i].length; p++) positions[i][p] = in.readInt();
+                }
+                snapshot.put(productId, new DocEntry(productId, hash, length, terms, tfs, positions));
+            }
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable search index snapshot: " + e.getMessage());
+            snapshot.clear();
+        }
+        return snapshot;
+    }
+
+    // --- Internal structures ---
+
+    private record DocEntry(String productId, long hash, int length, String[] terms, float[] tfs, int[][] positions) {
+    }
+
+    private record Posting(float tf, int[] positions) {
+    }
+
+    private static class ParsedQuery {
+        private final List<String> terms = new ArrayList<>();
+        private final List<String> prefixes = new ArrayList<>();
+        private final List<List<String>> phrases = new ArrayList<>();
+
+        static ParsedQuery parse(String text) {
+            ParsedQuery query = new ParsedQuery();
+            if (text == null) return query;
+
+            String[] parts = text.split("\"", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i % 2 == 1) {
+                    // inside quotes
+                    List<String> phrase = TextAnalyzer.analyze(parts[i]);
+                    if (phrase.size() == 1) query.terms.add(phrase.get(0));
+                    else if (phrase.size() > 1) query.phrases.add(phrase);
+                    continue;
+                }
+                for (String word : parts[i].trim().split("\\s+")) {
+                    if (word.isEmpty()) continue;
+                    if (word.endsWith("*")) {
+                        List<String> tokens = TextAnalyzer.tokenize(word);
+                        for (int t = 0; t < tokens.size(); t++) {
+                            if (t == tokens.size() - 1) query.prefixes.add(tokens.get(t));
+                            else query.terms.add(TextAnalyzer.stem(tokens.get(t)));
+                        }
+                    } else {
+                        query.terms.addAll(TextAnalyzer.analyze(word));
+                    }
+                }
+            }
+            return query;
+        }
+
+        boolean isEmpty() {
+            return terms.isEmpty() && prefixes.isEmpty() && phrases.isEmpty();
+        }
+    }
+}
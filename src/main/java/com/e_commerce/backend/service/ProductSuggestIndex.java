@@ -0,0 +1,274 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.SuggestionDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead over product names, brand names and category values.
+ *
+ * Suggestions live in an immutable snapshot: a sorted array of normalized keys (one per word start,
+ * so "pen" finds "Blue Pen"), which is a flattened trie where a prefix is a contiguous range.
+ * The best suggestions for every 1-2 character prefix are precomputed because those ranges are
+ * the widest. Writes rebuild the snapshot in the background and swap it in; the request path never
+ * touches Mongo.
+ */
+@Service
+public class ProductSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Map<String, Product> products = new HashMap<>(); // guarded by this
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("suggest-index").factory());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("name").include("brandName").include("mainCategory").include("subCategory")
+                .include("reviewCount").include("averageRating");
+
+        synchronized (this) {
+            products.clear();
+            try (Stream<Product> stream = mongoTemplate.stream(query, Product.class)) {
+                stream.forEach(p -> products.put(p.getId(), p));
+            }
+        }
+        scheduleRebuild();
+    }
+
+    /**
+     * Only changes to suggested text or popularity rebuild the snapshot (stock and price writes
+     * don't), and the rebuild runs off the publisher's thread, coalescing bursts of writes.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        boolean changed = false;
+        synchronized (this) {
+            for (Product product : event.saved()) {
+                Product previous = products.put(product.getId(), product);
+                changed |= previous == null || !sameSuggestions(previous, product);
+            }
+            for (String id : event.deletedIds()) {
+                changed |= products.remove(id) != null;
+            }
+        }
+        if (changed) scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuildSnapshot);
+        }
+    }
+
+    // Runs on the rebuilder only, so snapshots are swapped in the order they were built
+    private void rebuildSnapshot() {
+        rebuildScheduled.set(false);
+        List<Product> current;
+        synchronized (this) {
+            current = new ArrayList<>(products.values());
+        }
+        snapshot = Snapshot.build(current);
+    }
+
+    // Blocks until every rebuild scheduled so far has been swapped in; for tests
+    void awaitRebuild() throws InterruptedException, ExecutionException {
+        rebuilder.submit(() -> { }).get();
+    }
+
+    private static boolean sameSuggestions(Product a, Product b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getBrandName(), b.getBrandName())
+                && Objects.equals(a.getMainCategory(), b.getMainCategory())
+                && Objects.equals(a.getSubCategory(), b.getSubCategory())
+                && Objects.equals(a.getReviewCount(), b.getReviewCount())
+                && Objects.equals(a.getAverageRating(), b.getAverageRating());
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return snapshot.suggest(TextAnalyzer.normalize(prefix).strip(), Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Popularity weight: products with many good reviews rank first; unreviewed products still score 1.
+     */
+    static double popularity(Product product) {
+        int reviews = product.getReviewCount() == null ? 0 : product.getReviewCount();
+        double rating = product.getAverageRating() == null ? 0 : product.getAverageRating();
+        return 1 + Math.log1p(reviews) * (1 + rating);
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new SuggestionDTO[0], new double[0]);
+
+        private final String[] keys;              // sorted
+        private final int[] entryOfKey;           // keys[i] belongs to entries[entryOfKey[i]]
+        private final SuggestionDTO[] entries;
+        private final double[] weights;
+        private final Map<String, List<SuggestionDTO>> precomputed = new HashMap<>();
+
+        private Snapshot(String[] keys, int[] entryOfKey, SuggestionDTO[] entries, double[] weights) {
+            this.keys = keys;
+            this.entryOfKey = entryOfKey;
+            this.entries = entries;
+            this.weights = weights;
+        }
+
+        static Snapshot build(Iterable<Product> products) {
+            // Aggregate suggestions: one per product, one per brand, one per category value
+            Map<String, Integer> index = new HashMap<>();
+            List<SuggestionDTO> entries = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (Product product : products) {
+                double weight = popularity(product);
+                add(entries, weights, index, "product:" + product.getId(),
+                        new SuggestionDTO(product.getName(), "product", product.getId()), weight);
+                add(entries, weights, index, "brand:" + TextAnalyzer.normalize(product.getBrandName()),
+                        new SuggestionDTO(product.getBrandName(), "brand", null), weight);
+                add(entries, weights, index, "category:" + TextAnalyzer.normalize(product.getMainCategory()),
+                        new SuggestionDTO(product.getMainCategory(), "category", null), weight);
+                add(entries, weights, index, "category:" + TextAnalyzer.normalize(product.getSubCategory()),
+                        new SuggestionDTO(product.getSubCategory(), "category", null), weight);
+            }
+
+            // One key per word start
+            List<String> keyList = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int e = 0; e < entries.size(); e++) {
+                String normalized = TextAnalyzer.normalize(entries.get(e).getText()).strip();
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < normalized.length(); i++) {
+                    boolean wordStart = i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1));
+                    if (wordStart && Character.isLetterOrDigit(normalized.charAt(i))) {
+                        String key = normalized.substring(i);
+                        if (seen.add(key)) {
+                            keyList.add(key);
+                            owners.add(e);
+                        }
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+
+            String[] keys = new String[order.length];
+            int[] entryOfKey = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                entryOfKey[i] = owners.get(order[i]);
+            }
+            double[] weightArray = weights.stream().mapToDouble(Double::doubleValue).toArray();
+            Snapshot snapshot = new Snapshot(keys, entryOfKey, entries.toArray(new SuggestionDTO[0]), weightArray);
+
+            Set<String> shortPrefixes = new HashSet<>();
+            for (String key : keys) {
+                for (int len = 1; len <= PRECOMPUTED_PREFIX_LENGTH && len <= key.length(); len++) {
+                    shortPrefixes.add(key.substring(0, len));
+                }
+            }
+            for (String prefix : shortPrefixes) {
+                snapshot.precomputed.put(prefix, snapshot.scan(prefix, MAX_SUGGESTIONS));
+            }
+            return snapshot;
+        }
+
+        private static void add(List<SuggestionDTO> entries, List<Double> weights, Map<String, Integer> index,
+                                String identity, SuggestionDTO suggestion, double weight) {
+            if (suggestion.getText() == null || suggestion.getText().isBlank()) return;
+            Integer existing = index.get(identity);
+            if (existing == null) {
+                index.put(identity, entries.size());
+                entries.add(suggestion);
+                weights.add(weight);
+            } else {
+                weights.set(existing, weights.get(existing) + weight);
+            }
+        }
+
+        List<SuggestionDTO> suggest(String prefix, int limit) {
+            if (prefix.isEmpty() || limit <= 0) return List.of();
+            List<SuggestionDTO> top = prefix.length() <= PRECOMPUTED_PREFIX_LENGTH
+                    ? precomputed.getOrDefault(prefix, List.of())
+                    : scan(prefix, limit);
+            return top.size() > limit ? top.subList(0, limit) : top;
+        }
+
+        // Top-k by weight over the contiguous key range sharing the prefix
+        private List<SuggestionDTO> scan(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+
+            int[] best = new int[limit];
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                int entry = entryOfKey[i];
+                boolean duplicate = false;
+                for (int j = 0; j < size && !duplicate; j++) duplicate = best[j] == entry;
+                if (duplicate) continue;
+                if (size < limit) {
+                    best[size++] = entry;
+                } else if (weights[entry] > weights[best[size - 1]]) {
+                    best[size - 1] = entry;
+                } else {
+                    continue;
+                }
+                // keep best[] sorted by weight descending (insertion step)
+                for (int j = size - 1; j > 0 && weights[best[j]] > weights[best[j - 1]]; j--) {
+                    int tmp = best[j];
+                    best[j] = best[j - 1];
+                    best[j - 1] = tmp;
+                }
+            }
+
+            List<SuggestionDTO> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) result.add(entries[best[i]]);
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
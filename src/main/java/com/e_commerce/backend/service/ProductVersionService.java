@@ -0,0 +1,72 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.event.ProductChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the strong ETags of the product GET endpoints.
+ * Every ProductChangedEvent bumps the changed products and the catalog-wide version,
+ * so an If-None-Match check costs a map lookup instead of a Mongo query.
+ *
+ * The bump is the last listener of the event: caches and snapshots are invalidated first, so
+ * anything loaded after a caller reads version N was read from Mongo after the writes behind N.
+ * Callers read the version before loading and tag the response with it; coalesced loads are
+ * keyed by version so a request never joins a load that started before a newer version.
+ *
+ * Counters live in memory; the epoch prefix changes on every start so ETags handed out
+ * by a previous process never match.
+ */
+@Service
+public class ProductVersionService {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> productVersions = new ConcurrentHashMap<>();
+
+    public long productVersion(String productId) {
+        AtomicLong version = productVersions.get(productId);
+        return version == null ? 0 : version.get();
+    }
+
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public String productETag(String productId) {
+        return productETag(productId, null);
+    }
+
+    /**
+     * ETag for one product; `variant` distinguishes representations such as sparse fieldsets.
+     */
+    public String productETag(String productId, String variant) {
+        return "\"" + epoch + "-p-" + productId + "-" + productVersion(productId) + suffix(variant) + "\"";
+    }
+
+    /**
+     * ETag for a catalog-level response; `variant` distinguishes e.g. different query strings.
+     */
+    public String catalogETag(String variant) {
+        return "\"" + epoch + "-c-" + catalogVersion.get() + suffix(variant) + "\"";
+    }
+
+    private static String suffix(String variant) {
+        return variant == null || variant.isEmpty() ? "" : "-" + Integer.toHexString(variant.hashCode());
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE) // after ProductCacheService and CatalogSnapshotService have invalidated
+    public void onProductChanged(ProductChangedEvent event) {
+        for (String productId : event.productIds()) {
+            productVersions.computeIfAbsent(productId, id -> new AtomicLong()).incrementAndGet();
+        }
+        catalogVersion.incrementAndGet();
+    }
+}
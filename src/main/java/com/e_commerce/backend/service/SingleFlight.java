@@ -0,0 +1,48 @@
+package com.e_commerce.backend.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader,
+ * everyone arriving while it is in flight waits for and shares that result.
+ *
+ * The fast path (joining an existing load) is a lock-free map read. Waiting is done on a
+ * CompletableFuture rather than a monitor, so virtual threads park instead of pinning a carrier.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) return await(existing);
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) return await(existing);
+
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.e_commerce.backend.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives an image upload straight from the multipart request body.
+ *
+ * The file part is parsed incrementally and streamed into the UploadStore in a single write:
+ * no MultipartFile temp copy (container multipart handling is switched off in
+ * BackendApplication). The type is checked against the first bytes and the size is enforced
+ * while reading, so bad uploads are refused before they are written out. A semaphore caps
+ * concurrent uploads; excess requests wait briefly, then get 503 instead of piling up.
+ */
+@Service
+public class StreamingUploadService {
+
+    public static final String FILE_FIELD = "file";
+
+    // Multipart boundaries and part headers on top of the file itself
+    private static final long ENVELOPE_BYTES = 16 * 1024;
+
+    @Autowired
+    private UploadStore uploadStore;
+
+    @Value("${upload.max-size:10MB}")
+    private DataSize maxSize;
+
+    @Value("${upload.queue-timeout:5s}")
+    private Duration queueTimeout;
+
+    private final Semaphore permits;
+
+    public StreamingUploadService(@Value("${upload.max-concurrent:16}") int maxConcurrent) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    public UploadStore.Stored receive(HttpServletRequest request, UploadStore.Area area) throws IOException {
+        long max = maxSize.toBytes();
+        long declared = request.getContentLengthLong();
+        if (declared > max + ENVELOPE_BYTES) {
+            throw new UploadRejectedException(413, "File is larger than " + maxSize.toMegabytes() + "MB");
+        }
+        String boundary = boundaryOf(request.getContentType());
+
+        try {
+            if (!permits.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new UploadRejectedException(503, "Too many uploads in progress, try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadRejectedException(503, "Upload interrupted");
+        }
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.next()) != null) {
+                if (!FILE_FIELD.equals(part.name()) || part.filename() == null) continue;
+
+                BufferedInputStream body = new BufferedInputStream(part.body(), 16);
+                String extension = sniffExtension(body);
+                if (extension == null) {
+                    throw new UploadRejectedException(415, "Only JPEG, PNG, GIF and WebP images are accepted");
+                }
+                return uploadStore.store(area, new LimitedInputStream(body, max), extension);
+            }
+            throw new UploadRejectedException(400, "No file uploaded");
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String boundaryOf(String contentType) {
+        try {
+            MediaType type = contentType == null ? null : MediaType.parseMediaType(contentType);
+            String boundary = type == null || !type.isCompatibleWith(MediaType.MULTIPART_FORM_DATA) ? null : type.getParameter("boundary");
+            if (boundary != null && boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                boundary = boundary.substring(1, boundary.length() - 1);
+            }
+            if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+                throw new UploadRejectedException(400, "Expected multipart/form-data with a boundary");
+            }
+            return boundary;
+        } catch (InvalidMediaTypeException e) {
+            throw new UploadRejectedException(400, "Expected multipart/form-data with a boundary");
+        }
+    }
+
+    // Magic bytes -> stored extension; the client's filename and Content-Type are not trusted
+    static String sniffExtension(BufferedInputStream in) throws IOException {
+        byte[] magic = new byte[12];
+        in.mark(magic.length);
+        int n = in.readNBytes(magic, 0, magic.length);
+        in.reset();
+        if (n >= 3 && (magic[0] & 0xff) == 0xFF && (magic[1] & 0xff) == 0xD8 && (magic[2] & 0xff) == 0xFF) return "jpg";
+        if (n >= 8 && (magic[0] & 0xff) == 0x89 && magic[1] == 'P' && magic[2] == 'N' && magic[3] == 'G'
+                && magic[4] == '\r' && magic[5] == '\n' && magic[6] == 0x1A && magic[7] == '\n') return "png";
+        if (n >= 6 && magic[0] == 'G' && magic[1] == 'I' && magic[2] == 'F' && magic[3] == '8'
+                && (magic[4] == '7' || magic[4] == '9') && magic[5] == 'a') return "gif";
+        if (n >= 12 && magic[0] == 'R' && magic[1] == 'I' && magic[2] == 'F' && magic[3] == 'F'
+                && magic[8] == 'W' && magic[9] == 'E' && magic[10] == 'B' && magic[11] == 'P') return "webp";
+        return null;
+    }
+
+    // Fails the read (and with it the store, which then deletes its temp file) past `max` bytes
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long max;
+        private long count;
+
+        LimitedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > max) throw new UploadRejectedException(413, "File is larger than " + max / (1024 * 1024) + "MB");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.e_commerce.backend.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenization shared by the in-memory search and suggest indexes:
+ * accent folding, lowercasing, splitting on anything that is not a letter or digit,
+ * and a light English suffix-stripping stemmer.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Lowercased, accent-folded form used for exact and prefix comparisons.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase();
+    }
+
+    /**
+     * Splits normalized text into tokens (no stemming).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) tokens.add(normalized.substring(start));
+        return tokens;
+    }
+
+    /**
+     * Tokenizes and stems; this is what goes into the inverted index.
+     */
+    public static List<String> analyze(String text) {
+        List<String> tokens = tokenize(text);
+        tokens.replaceAll(TextAnalyzer::stem);
+        return tokens;
+    }
+
+    /**
+     * Conservative plural/verb-suffix stripping ("pencils" -> "pencil", "erasers" -> "eraser",
+     * "boxes" -> "box", "batteries" -> "battery", "coloring" -> "color").
+     * Short words and numbers are left alone.
+     */
+    public static String stem(String token) {
+        if (token.length() <= 3 || Character.isDigit(token.charAt(0))) return token;
+
+        if (token.endsWith("ies") && token.length() > 4) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("sses") || token.endsWith("xes") || token.endsWith("ches") || token.endsWith("shes")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && !token.endsWith("is")) {
+            return token.substring(0, token.length() - 1);
+        }
+        if (token.endsWith("ing") && token.length() > 5) {
+            return undouble(token.substring(0, token.length() - 3));
+        }
+        if (token.endsWith("ed") && token.length() > 4) {
+            return undouble(token.substring(0, token.length() - 2));
+        }
+        return token;
+    }
+
+    // "wrapped" -> "wrapp" -> "wrap"
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n >= 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
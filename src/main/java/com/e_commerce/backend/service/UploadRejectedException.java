@@ -0,0 +1,18 @@
+package com.e_commerce.backend.service;
+
+/**
+ * An upload refused before (or while) it was stored; `status` is the HTTP status to answer with.
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    private final int status;
+
+    public UploadRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,234 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.entity.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage for uploaded product images and avatars.
+ *
+ * Files are named after the SHA-256 of their bytes (`<hash>.<ext>`), hashed while the upload
+ * is streamed to disk, so re-uploading the same photo reuses the existing blob. Public URLs
+ * keep the /products/... and /avatars/... form.
+ *
+ * A blob has no reference counter: when a product or user drops an image, `release` asks
+ * Mongo whether anything else still points at the URL and deletes the blob if not. Blobs
+ * released while still inside the grace period, or never attached at all, are picked up by a
+ * periodic sweep (uploads.sweep-interval) once the grace period is over.
+ */
+@Service
+public class UploadStore {
+
+    public enum Area {
+        PRODUCTS("products"), AVATARS("avatars");
+
+        private final String folder;
+
+        Area(String folder) {
+            this.folder = folder;
+        }
+
+        public Path root() {
+            return Paths.get("uploads", folder).toAbsolutePath().normalize();
+        }
+
+        public String urlPrefix() {
+            return "/" + folder + "/";
+        }
+
+        /**
+         * Local file behind a public URL of this area, or null for foreign/unsafe URLs.
+         */
+        public Path pathOf(String url) {
+            if (url == null || !url.startsWith(urlPrefix())) return null;
+            String name = url.substring(urlPrefix().length());
+            if (name.isEmpty() || name.startsWith(".") || name.contains("/") || name.contains("\\")) return null;
+            return root().resolve(name);
+        }
+    }
+
+    public record Stored(String url, Path path, boolean created) {
+    }
+
+    public static final Pattern HASHED_NAME = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]{1,5}$");
+
+    // Uploaded but not yet attached to a product/user: don't let a concurrent release delete it
+    private static final Duration GRACE_PERIOD = Duration.ofHours(1);
+    private static final int SWEEP_BATCH = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ImageDerivativeService derivativeService;
+
+    @Value("${uploads.sweep-interval:6h}")
+    private Duration sweepInterval;
+
+    private ScheduledExecutorService sweeper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeper() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("upload-sweeper").daemon().factory());
+        long interval = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        if (sweeper != null) sweeper.shutdownNow();
+    }
+
+    /**
+     * Streams `in` into the store as `<hash>.<extension>`; returns the public URL, reusing an
+     * identical existing blob. Derivatives are generated only for newly created blobs.
+     */
+    public Stored store(Area area, InputStream in, String extension) throws IOException {
+        Path root = area.root();
+        Files.createDirectories(root);
+
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(root, ".upload-", ".tmp");
+        try {
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), digest)) {
+                in.transferTo(out);
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = root.resolve(name);
+            // Two identical uploads racing here both rename the same bytes into place, which is harmless
+            boolean created = !Files.exists(target);
+            if (created) {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                derivativeService.generateAsync(target);
+            } else {
+                // Same content already stored; refresh mtime so the grace period covers this upload too
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            }
+            return new Stored(area.urlPrefix() + name, target, created);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the blobs behind these URLs that nothing references any more.
+     * Legacy (non content-addressed) uploads are left alone.
+     */
+    public void release(Area area, Collection<String> urls) {
+        for (String url : urls) {
+            if (url == null || !url.startsWith(area.urlPrefix())) continue;
+            String name = url.substring(area.urlPrefix().length());
+            if (!HASHED_NAME.matcher(name).matches() || isReferenced(area, url)) continue;
+            deleteIfPastGracePeriod(url, area.root().resolve(name));
+        }
+    }
+
+    /**
+     * Deletes every unreferenced blob older than the grace period, checking references for
+     * SWEEP_BATCH blobs per query.
+     */
+    void sweep() {
+        for (Area area : Area.values()) {
+            if (!Files.isDirectory(area.root())) continue;
+            try (Stream<Path> files = Files.list(area.root())) {
+                List<Path> blobs = files.filter(f -> HASHED_NAME.matcher(f.getFileName().toString()).matches()).toList();
+                int deleted = 0;
+                for (int i = 0; i < blobs.size(); i += SWEEP_BATCH) {
+                    List<Path> batch = blobs.subList(i, Math.min(i + SWEEP_BATCH, blobs.size()));
+                    Set<String> referenced = referencedUrls(area, batch.stream().map(blob -> area.urlPrefix() + blob.getFileName()).toList());
+                    for (Path blob : batch) {
+                        String url = area.urlPrefix() + blob.getFileName();
+                        if (!referenced.contains(url) && deleteIfPastGracePeriod(url, blob)) deleted++;
+                    }
+                }
+                if (deleted > 0) System.out.println("Upload sweep deleted " + deleted + " unreferenced " + area.name().toLowerCase() + " blobs");
+            } catch (IOException | RuntimeException e) {
+                // A failed run must not cancel the schedule; the next one retries
+                System.out.println("Upload sweep of " + area + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean deleteIfPastGracePeriod(String url, Path blob) {
+        try {
+            if (!Files.exists(blob)) return false;
+            Instant modified = Files.getLastModifiedTime(blob).toInstant();
+            if (modified.isAfter(Instant.now().minus(GRACE_PERIOD))) return false;
+            Files.delete(blob);
+            derivativeService.deleteDerivatives(blob);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not delete unreferenced upload " + url + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Orders and carts keep copies of product image URLs, so a photo removed from its product is
+    // still in use while an order history line or a cart shows it
+    private static final List<Class<?>> PRODUCT_IMAGE_COPIES = List.of(Order.class, Cart.class);
+    private static final String COPIED_IMAGES = "items.images";
+
+    private boolean isReferenced(Area area, String url) {
+        if (area == Area.AVATARS) return mongoTemplate.exists(new Query(Criteria.where("avatarUrl").is(url)), User.class);
+        if (mongoTemplate.exists(new Query(Criteria.where("images").is(url)), Product.class)) return true;
+        for (Class<?> copies : PRODUCT_IMAGE_COPIES) {
+            if (mongoTemplate.exists(new Query(Criteria.where(COPIED_IMAGES).is(url)), copies)) return true;
+        }
+        return false;
+    }
+
+    private Set<String> referencedUrls(Area area, List<String> urls) {
+        if (area == Area.AVATARS) {
+            return new HashSet<>(mongoTemplate.findDistinct(new Query(Criteria.where("avatarUrl").in(urls)), "avatarUrl", User.class, String.class));
+        }
+        Set<String> referenced = new HashSet<>(mongoTemplate.findDistinct(new Query(Criteria.where("images").in(urls)), "images", Product.class, String.class));
+        for (Class<?> copies : PRODUCT_IMAGE_COPIES) {
+            List<String> unknown = urls.stream().filter(url -> !referenced.contains(url)).toList();
+            if (unknown.isEmpty()) break;
+            referenced.addAll(mongoTemplate.findDistinct(new Query(Criteria.where(COPIED_IMAGES).in(unknown)), COPIED_IMAGES, copies, String.class));
+        }
+        return referenced;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
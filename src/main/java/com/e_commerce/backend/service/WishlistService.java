@@ -2,7 +2,6 @@ package com.e_commerce.backend.service;
 
 import com.e_commerce.backend.entity.Product;
 import com.e_commerce.backend.entity.User;
-import com.e_commerce.backend.repository.ProductRepository;
 import com.e_commerce.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,7 +16,7 @@ public class WishlistService {
     private UserRepository userRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ProductCacheService productCache;
 
     public List<Product> getWishlist(String email) {
         User user = userRepository.findByEmail(email)
@@ -30,7 +29,7 @@ public class WishlistService {
         }
 
         // Fetch all products matching the IDs in the user's wishlist
-        return productRepository.findAllById(productIds);
+        return productCache.findAllById(productIds);
     }
 
     public void addToWishlist(String email, String productId) {
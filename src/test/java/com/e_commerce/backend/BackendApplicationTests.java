@@ -3,7 +3,7 @@ package com.e_commerce.backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "outbox.enabled=false")
 class BackendApplicationTests {
 
 	@Test
@@ -0,0 +1,93 @@
+package com.e_commerce.backend.config;
+
+import com.e_commerce.backend.service.UploadStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadFileHandlerTest {
+
+    private static final Path PRODUCTS = UploadStore.Area.PRODUCTS.root();
+
+    @Test
+    void resolvesFlatNamesInsideTheUploadFolder() {
+        assertEquals(PRODUCTS.resolve("photo.jpg"), UploadFileHandler.resolve("/products/photo.jpg"));
+        assertEquals(UploadStore.Area.AVATARS.root().resolve("me.png"), UploadFileHandler.resolve("/avatars/me.png"));
+        assertNull(UploadFileHandler.resolve("/other/photo.jpg"));
+        assertNull(UploadFileHandler.resolve("/products/"));
+    }
+
+    @Test
+    void rejectsTraversalAndSeparators() {
+        // The servlet path arrives decoded, so %2F / %5C / %2e%2e show up as these characters
+        assertNull(UploadFileHandler.resolve("/products/.."));
+        assertNull(UploadFileHandler.resolve("/products/../application.properties"));
+        assertNull(UploadFileHandler.resolve("/products/..\\..\\secret"));
+        assertNull(UploadFileHandler.resolve("/products/sub/photo.jpg"));
+        assertNull(UploadFileHandler.resolve("/products/.hidden"));
+        assertNull(UploadFileHandler.resolve("/avatars/../products/photo.jpg"));
+
+        // Still-encoded sequences are just odd file names, and stay inside the folder
+        Path encoded = UploadFileHandler.resolve("/products/%2e%2e%2fsecret");
+        assertEquals(PRODUCTS, encoded.getParent());
+    }
+
+    @Test
+    void parsesSingleRanges() {
+        assertArrayEquals(new long[]{0, 99}, UploadFileHandler.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, UploadFileHandler.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, UploadFileHandler.parseRange("bytes=900-5000", 1000));
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertArrayEquals(new long[]{900, 999}, UploadFileHandler.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, UploadFileHandler.parseRange("bytes=-5000", 1000));
+        assertNull(UploadFileHandler.parseRange("bytes=-0", 1000));
+        assertNull(UploadFileHandler.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    void unsatisfiableRangesReturnNull() {
+        assertNull(UploadFileHandler.parseRange("bytes=1000-", 1000));
+        assertNull(UploadFileHandler.parseRange("bytes=2000-3000", 1000));
+        assertNull(UploadFileHandler.parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void multiAndMalformedRangesServeTheWholeFile() {
+        assertArrayEquals(new long[0], UploadFileHandler.parseRange("bytes=0-10,20-30", 1000));
+        assertArrayEquals(new long[0], UploadFileHandler.parseRange("items=0-10", 1000));
+        assertArrayEquals(new long[0], UploadFileHandler.parseRange("bytes=abc-def", 1000));
+        assertArrayEquals(new long[0], UploadFileHandler.parseRange("bytes=50", 1000));
+        assertArrayEquals(new long[0], UploadFileHandler.parseRange("bytes=50-10", 1000));
+    }
+
+    @Test
+    void ifRangeNeedsAStrongETagOrTheExactDate() {
+        String etag = "\"3e8-18f\"";
+        long lastModified = 1_700_000_000_000L;
+
+        assertTrue(UploadFileHandler.ifRangeMatches(request(null), etag, lastModified));
+        assertTrue(UploadFileHandler.ifRangeMatches(request(etag), etag, lastModified));
+        assertFalse(UploadFileHandler.ifRangeMatches(request("\"other\""), etag, lastModified));
+        assertFalse(UploadFileHandler.ifRangeMatches(request("W/" + etag), etag, lastModified));
+        assertTrue(UploadFileHandler.ifRangeMatches(request("Tue, 14 Nov 2023 22:13:20 GMT"), etag, lastModified));
+        assertFalse(UploadFileHandler.ifRangeMatches(request("Tue, 14 Nov 2023 22:13:21 GMT"), etag, lastModified));
+        assertFalse(UploadFileHandler.ifRangeMatches(request("not a date"), etag, lastModified));
+    }
+
+    private static MockHttpServletRequest request(String ifRange) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/photo.jpg");
+        if (ifRange != null) request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.e_commerce.backend.controller;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.CartRepository;
+import com.e_commerce.backend.repository.OrderRepository;
+import com.e_commerce.backend.service.CartService;
+import com.e_commerce.backend.service.InventoryService;
+import com.e_commerce.backend.service.OutboxService;
+import com.e_commerce.backend.service.ProductCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderControllerTest {
+
+    private static final String USER = "buyer@example.com";
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartService cartService = mock(CartService.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ProductCacheService productCache = mock(ProductCacheService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final OrderController controller = new OrderController();
+
+    private final InventoryService.Reservation reservation = new InventoryService.Reservation("t", Map.of("p-1", 2), Map.of());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(controller, "cartService", cartService);
+        ReflectionTestUtils.setField(controller, "inventoryService", inventoryService);
+        ReflectionTestUtils.setField(controller, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(controller, "productCache", productCache);
+        ReflectionTestUtils.setField(controller, "outboxService", outboxService);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(USER, null, List.of()));
+
+        Cart cart = new Cart();
+        cart.setUserId(USER);
+        Cart.CartItem item = new Cart.CartItem();
+        item.setProductId("p-1");
+        item.setPrice(1.5);
+        item.setQuantity(2);
+        cart.getItems().add(item);
+        when(cartRepository.findByUserId(USER)).thenReturn(Optional.of(cart));
+        when(inventoryService.reserve(any())).thenReturn(reservation);
+
+        Product product = new Product();
+        product.setId("p-1");
+        product.setName("Pencil");
+        product.setPrice(2.0);
+        when(productCache.findAllById(any())).thenReturn(List.of(product));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void checkoutChargesTheCurrentCatalogPrice() {
+        ResponseEntity<?> response = controller.createOrder(Map.of(), null);
+
+        assertEquals(200, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        ArgumentCaptor<Order> saved = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).save(saved.capture());
+        assertEquals(4.0, saved.getValue().getTotal()); // 2 x 2.0, not the 1.5 stored in the cart
+        assertEquals(2.0, saved.getValue().getItems().get(0).getPrice());
+        verify(productCache, times(1)).findAllById(any());
+    }
+
+    @Test
+    void failedOutboxInsertGivesTheStockBack() {
+        doThrow(new DataAccessResourceFailureException("down")).when(outboxService).record(anyString(), any(String[].class));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> controller.createOrder(Map.of(), null));
+        verify(inventoryService).release(reservation);
+        verify(inventoryService, never()).confirm(any());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(cartService, never()).clear(anyString());
+    }
+
+    @Test
+    void failedOrderSaveGivesTheStockBackAndDropsTheMessages() {
+        when(orderRepository.save(any(Order.class))).thenThrow(new DataAccessResourceFailureException("down"));
+        doThrow(new DataAccessResourceFailureException("still down")).when(outboxService).discard(anyString());
+
+        DataAccessResourceFailureException e = assertThrows(DataAccessResourceFailureException.class, () -> controller.createOrder(Map.of(), null));
+        verify(inventoryService).release(reservation);
+        verify(outboxService).discard(anyString());
+        assertEquals(1, e.getSuppressed().length);
+    }
+}
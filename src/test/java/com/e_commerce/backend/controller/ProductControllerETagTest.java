@@ -0,0 +1,134 @@
+package com.e_commerce.backend.controller;
+
+import com.e_commerce.backend.dto.ProductFilterDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class ProductControllerETagTest {
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(created);
+    }
+
+    @Test
+    void matchingIfNoneMatchGets304() {
+        Product product = save("ETag Pencil", 1.0);
+
+        Response first = get(product.getId(), null);
+        assertEquals(200, first.status());
+        assertNotNull(first.etag());
+
+        Response second = get(product.getId(), first.etag());
+        assertEquals(304, second.status());
+        assertNull(second.body());
+        assertEquals(first.etag(), second.etag());
+    }
+
+    @Test
+    void writeInvalidatesTheCachedProductAndItsETag() {
+        Product product = save("ETag Ruler", 1.0);
+        Response before = get(product.getId(), null); // now cached
+
+        product.setPrice(2.0);
+        productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+
+        Response after = get(product.getId(), before.etag());
+        assertEquals(200, after.status());
+        assertEquals(2.0, ((Product) after.body()).getPrice());
+        assertNotEquals(before.etag(), after.etag());
+        assertEquals(304, get(product.getId(), after.etag()).status());
+    }
+
+    @Test
+    void gzipSnapshotHasItsOwnETag() throws InterruptedException {
+        save("ETag Marker", 1.0); // drops the snapshots; the rebuild runs in the background
+
+        MockHttpServletResponse gzipped = list("gzip", null);
+        for (int attempt = 0; attempt < 100 && !"gzip".equals(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)); attempt++) {
+            Thread.sleep(50);
+            gzipped = list("gzip", null);
+        }
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getHeader(HttpHeaders.ETAG).endsWith("-gz\""));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeader(HttpHeaders.VARY));
+
+        MockHttpServletResponse identity = list(null, gzipped.getHeader(HttpHeaders.ETAG));
+        assertEquals(200, identity.getStatus(), "the gzip validator must not match the identity body");
+        assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        MockHttpServletResponse revalidated = list("gzip", gzipped.getHeader(HttpHeaders.ETAG));
+        assertEquals(304, revalidated.getStatus());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, revalidated.getHeader(HttpHeaders.VARY));
+    }
+
+    // Status and entity headers of the response as a client would see them
+    private MockHttpServletResponse list(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (acceptEncoding != null) request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> entity = productController.getAll(new ProductFilterDTO(), new ServletWebRequest(request, response), response);
+        if (entity != null) {
+            response.setStatus(entity.getStatusCode().value());
+            entity.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        }
+        return response;
+    }
+
+    private Response get(String id, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/" + id);
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> entity = productController.getById(id, null, new ServletWebRequest(request, response));
+        if (entity == null) return new Response(response.getStatus(), response.getHeader(HttpHeaders.ETAG), null);
+        return new Response(entity.getStatusCode().value(), response.getHeader(HttpHeaders.ETAG), entity.getBody());
+    }
+
+    private Product save(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setStockQuantity(5);
+        Product saved = productRepository.save(product);
+        created.add(saved.getId());
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
+    }
+
+    private record Response(int status, String etag, Object body) {
+    }
+}
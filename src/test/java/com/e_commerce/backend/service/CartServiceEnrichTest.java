@@ -0,0 +1,104 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartServiceEnrichTest {
+
+    private ProductRepository productRepository;
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        ProductCacheService productCache = new ProductCacheService();
+        ReflectionTestUtils.setField(productCache, "productRepository", productRepository);
+        ReflectionTestUtils.setField(productCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(productCache, "versionService", new ProductVersionService());
+        ReflectionTestUtils.setField(productCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(productCache, "ttl", Duration.ofMinutes(1));
+        productCache.init();
+
+        cartService = new CartService();
+        ReflectionTestUtils.setField(cartService, "productCache", productCache);
+    }
+
+    @Test
+    void wholeCartIsPricedWithOneRoundTrip() {
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(
+                product("same", 10.0, 50),
+                product("cheaper", 7.5, 5),
+                product("sold-out", 3.0, 0),
+                product("scarce", 4.0, 2)));
+
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>(List.of(
+                item("same", 10.0, 1),
+                item("cheaper", 9.0, 1),
+                item("sold-out", 3.0, 1),
+                item("scarce", 4.0, 3),
+                item("deleted", 1.0, 1))));
+
+        cartService.enrich(cart);
+
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(productRepository, never()).findById(any());
+
+        Cart.CartItem same = cart.getItems().get(0);
+        assertFalse(same.getPriceChanged());
+        assertTrue(same.getInStock());
+
+        Cart.CartItem cheaper = cart.getItems().get(1);
+        assertTrue(cheaper.getPriceChanged());
+        assertEquals(9.0, cheaper.getPreviousPrice());
+        assertEquals(7.5, cheaper.getPrice());
+
+        assertFalse(cart.getItems().get(2).getInStock());
+
+        Cart.CartItem scarce = cart.getItems().get(3);
+        assertFalse(scarce.getInStock(), "3 requested, 2 left");
+        assertEquals(2, scarce.getAvailableStock());
+
+        Cart.CartItem deleted = cart.getItems().get(4);
+        assertFalse(deleted.getInStock());
+        assertNull(deleted.getPreviousPrice());
+    }
+
+    private static Product product(String id, double price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price);
+        product.setStockQuantity(stock);
+        return product;
+    }
+
+    private static Cart.CartItem item(String productId, double price, int quantity) {
+        Cart.CartItem item = new Cart.CartItem();
+        item.setProductId(productId);
+        item.setPrice(price);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
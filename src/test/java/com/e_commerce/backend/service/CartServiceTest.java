@@ -0,0 +1,101 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.repository.CartRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class CartServiceTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    private final String userId = "cart-test-" + UUID.randomUUID() + "@example.com";
+
+    @AfterEach
+    void cleanUp() {
+        cartRepository.findByUserId(userId).ifPresent(cartRepository::delete);
+    }
+
+    @Test
+    void concurrentAddsLoseNoQuantity() throws Exception {
+        int threads = 32;
+        int addsPerThread = 20;
+        String[] products = {"p-1", "p-2", "p-3"};
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < addsPerThread; i++) {
+                        // The cart doesn't exist yet: the first adds race on the upsert as well
+                        cartService.addItem(userId, item(products[(thread + i) % products.length], 1));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        }
+
+        Cart cart = cartRepository.findByUserId(userId).orElseThrow();
+        assertEquals(products.length, cart.getItems().size(), "one line per product");
+        int total = cart.getItems().stream().mapToInt(Cart.CartItem::getQuantity).sum();
+        assertEquals(threads * addsPerThread, total);
+    }
+
+    @Test
+    void updateAndRemoveTouchOnlyTheirLine() {
+        cartService.addItem(userId, item("a", 2));
+        cartService.addItem(userId, item("b", 1));
+
+        Cart updated = cartService.updateQuantity(userId, "a", 5).orElseThrow();
+        assertEquals(5, line(updated, "a").getQuantity());
+        assertEquals(1, line(updated, "b").getQuantity());
+
+        Cart removed = cartService.removeItem(userId, "a").orElseThrow();
+        assertEquals(1, removed.getItems().size());
+        assertTrue(cartService.removeItem(userId, "missing").isEmpty());
+    }
+
+    @Test
+    void emptiedCartIsDeleted() {
+        assertTrue(cartService.getCart(userId).isEmpty(), "no document before the first add");
+        cartService.addItem(userId, item("a", 1));
+        cartService.updateQuantity(userId, "a", 0);
+        assertTrue(cartRepository.findByUserId(userId).isEmpty());
+    }
+
+    private static Cart.CartItem item(String productId, int quantity) {
+        Cart.CartItem item = new Cart.CartItem();
+        item.setProductId(productId);
+        item.setName("Item " + productId);
+        item.setPrice(1.0);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static Cart.CartItem line(Cart cart, String productId) {
+        return cart.getItems().stream().filter(i -> productId.equals(i.getProductId())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,177 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.controller.OrderController;
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.OutboxMessage;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.CartRepository;
+import com.e_commerce.backend.repository.OrderRepository;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The background flush is pushed out of the way so the tests decide when carts are written;
+// idle-eviction=0s makes every flushDirty() evict what it wrote
+@SpringBootTest(properties = {"outbox.enabled=false", "cart.write-behind.enabled=true", "cart.write-behind.flush-interval=1h", "cart.write-behind.idle-eviction=0s"})
+class CartWriteBehindBufferTest {
+
+    @Autowired
+    private CartWriteBehindBuffer buffer;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String userId = "write-behind-test-" + UUID.randomUUID() + "@example.com";
+    private final List<String> products = new ArrayList<>();
+    private final List<String> orders = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        buffer.flush(userId);
+        cartRepository.findByUserId(userId).ifPresent(cartRepository::delete);
+        productRepository.deleteAllById(products);
+        orderRepository.deleteAllById(orders);
+        mongoTemplate.remove(new Query(Criteria.where("orderId").in(orders)), OutboxMessage.class);
+    }
+
+    @Test
+    void stepperBurstIsOneWrite() {
+        long before = writes();
+        cartService.addItem(userId, item("p-1", 1));
+        cartService.addItem(userId, item("p-2", 1));
+        for (int quantity = 2; quantity <= 30; quantity++) cartService.updateQuantity(userId, "p-1", quantity);
+        cartService.removeItem(userId, "p-2");
+
+        assertEquals(0, writes() - before);
+        assertTrue(cartRepository.findByUserId(userId).isEmpty(), "nothing reaches Mongo before a flush");
+        assertEquals(30, cartService.getCart(userId).orElseThrow().getItems().get(0).getQuantity()); // reads see the buffer
+
+        buffer.flushDirty();
+        assertEquals(1, writes() - before);
+        Cart stored = cartRepository.findByUserId(userId).orElseThrow();
+        assertEquals(1, stored.getItems().size());
+        assertEquals(30, stored.getItems().get(0).getQuantity());
+
+        buffer.flushDirty(); // clean: nothing more to write
+        assertEquals(1, writes() - before);
+    }
+
+    @Test
+    void checkoutSeesTheLatestStepperValue() {
+        String productId = product(100);
+        long before = writes();
+        cartService.addItem(userId, item(productId, 1));
+        for (int quantity = 2; quantity <= 12; quantity++) cartService.updateQuantity(userId, productId, quantity);
+        assertEquals(0, writes() - before);
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(userId, null, List.of()));
+        ResponseEntity<?> response = orderController.createOrder(Map.of(), null);
+        assertEquals(200, response.getStatusCode().value(), String.valueOf(response.getBody()));
+        String orderId = (String) ((Map<?, ?>) response.getBody()).get("orderId");
+        orders.add(orderId);
+
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertEquals(1, order.getItems().size());
+        assertEquals(12, order.getItems().get(0).getQuantity());
+        assertEquals(88, productRepository.findById(productId).orElseThrow().getStockQuantity());
+        // The flush before checkout, then the write-through clear
+        assertEquals(2, writes() - before);
+        assertTrue(cartRepository.findByUserId(userId).isEmpty());
+        assertTrue(cartService.getCart(userId).isEmpty());
+    }
+
+    @Test
+    void mutationWaitingOnAnEvictedEntryRetriesOnAFreshOne() throws Exception {
+        cartService.addItem(userId, item("p-1", 1));
+        ReentrantLock lock = lockOf(userId);
+
+        Future<Cart> waiting;
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            lock.lock();
+            try {
+                waiting = executor.submit(() -> cartService.addItem(userId, item("p-1", 1)));
+                while (!lock.hasQueuedThreads()) Thread.sleep(1);
+                // Same thread, so flushDirty re-enters the lock: it writes the cart and evicts the
+                // entry the waiting mutation already holds a reference to
+                buffer.flushDirty();
+            } finally {
+                lock.unlock();
+            }
+            assertEquals(2, waiting.get().getItems().get(0).getQuantity());
+        }
+
+        assertNotSame(lock, lockOf(userId), "the retry went to a new entry");
+        assertEquals(1, cartRepository.findByUserId(userId).orElseThrow().getItems().get(0).getQuantity());
+        buffer.flushDirty();
+        assertEquals(2, cartRepository.findByUserId(userId).orElseThrow().getItems().get(0).getQuantity());
+    }
+
+    private long writes() {
+        return ((AtomicLong) ReflectionTestUtils.getField(buffer, "writes")).get();
+    }
+
+    private ReentrantLock lockOf(String user) {
+        Map<?, ?> entries = (Map<?, ?>) ReflectionTestUtils.getField(buffer, "entries");
+        return (ReentrantLock) ReflectionTestUtils.getField(entries.get(user), "lock");
+    }
+
+    private String product(int stock) {
+        Product product = new Product();
+        product.setName("Write-behind test product");
+        product.setPrice(2.5);
+        product.setStockQuantity(stock);
+        product.setStatus(Product.statusFor(stock));
+        String id = productRepository.save(product).getId();
+        products.add(id);
+        return id;
+    }
+
+    private static Cart.CartItem item(String productId, int quantity) {
+        Cart.CartItem item = new Cart.CartItem();
+        item.setProductId(productId);
+        item.setName("Item " + productId);
+        item.setPrice(2.5);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
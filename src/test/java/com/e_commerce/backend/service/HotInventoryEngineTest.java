@@ -0,0 +1,188 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.InventoryLedgerEntry;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// No SKUs are configured; tracking the test SKUs explicitly starts the ledger writer
+@SpringBootTest(properties = "outbox.enabled=false")
+class HotInventoryEngineTest {
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private HotInventoryEngine engine;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(created);
+        mongoTemplate.remove(new Query(Criteria.where("productId").in(created)), InventoryLedgerEntry.class);
+    }
+
+    @Test
+    void hotSkuNeverOversellsAndLedgerCatchesUp() throws Exception {
+        int stock = 500;
+        String id = product("Glue sticks", stock);
+        engine.track(List.of(id));
+
+        int sold = run(THREADS * 20, i -> inventoryService.reserve(Map.of(id, 1)));
+        assertEquals(stock, sold);
+        assertEquals(0, engine.available(id));
+
+        engine.flushNow();
+        Product persisted = productRepository.findById(id).orElseThrow();
+        assertEquals(0, persisted.getStockQuantity());
+        assertEquals(Product.OUT_OF_STOCK, persisted.getStatus());
+    }
+
+    @Test
+    void releasedHotStockIsPersistedToo() throws Exception {
+        String id = product("Crayons", 10);
+        engine.track(List.of(id));
+
+        inventoryService.release(inventoryService.reserve(Map.of(id, 4)));
+        inventoryService.reserve(Map.of(id, 3));
+        engine.flushNow();
+
+        assertEquals(7, engine.available(id));
+        assertEquals(7, productRepository.findById(id).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void staleEventsAddNoPhantomStockAndOutsideEditsStillCount() throws Exception {
+        String id = product("Markers", 10);
+        engine.track(List.of(id));
+        Product readBeforeTheBatch = productRepository.findById(id).orElseThrow();
+
+        inventoryService.reserve(Map.of(id, 3));
+        engine.flushNow();
+        // An event carrying a copy read before the batch was applied (stock 10, Mongo now has 7)
+        eventPublisher.publishEvent(ProductChangedEvent.saved(readBeforeTheBatch));
+        engine.flushNow();
+        assertEquals(7, engine.available(id));
+
+        // A real outside edit, applied with a targeted update
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)), new Update().set("stockQuantity", 20), Product.class);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(productRepository.findById(id).orElseThrow()));
+        engine.flushNow();
+        assertEquals(20, engine.available(id));
+    }
+
+    @Test
+    void appliedLedgerRowsArePruned() throws Exception {
+        String id = product("Staples", 10);
+        engine.track(List.of(id));
+
+        inventoryService.reserve(Map.of(id, 1));
+        engine.flushNow();
+        inventoryService.reserve(Map.of(id, 1));
+        engine.flushNow();
+
+        // Only the latest batch is kept, as the sequence high-water mark
+        List<InventoryLedgerEntry> rows = mongoTemplate.find(new Query(Criteria.where("productId").is(id)), InventoryLedgerEntry.class);
+        assertEquals(1, rows.size());
+        assertTrue(rows.get(0).isApplied());
+        assertEquals(8, productRepository.findById(id).orElseThrow().getStockQuantity());
+    }
+
+    // Rough throughput comparison with the Mongo path; printed, not asserted. Opt-in: mvn test -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareWithMongoPath() throws Exception {
+        int attempts = 5000;
+        String hot = product("Hot notebook", attempts);
+        String cold = product("Cold notebook", attempts);
+        engine.track(List.of(hot));
+
+        long start = System.nanoTime();
+        run(attempts, i -> inventoryService.reserve(Map.of(hot, 1)));
+        long hotNanos = System.nanoTime() - start;
+        engine.flushNow();
+
+        start = System.nanoTime();
+        run(attempts, i -> inventoryService.reserve(Map.of(cold, 1)));
+        long coldNanos = System.nanoTime() - start;
+
+        System.out.printf("Reservations/s with %d threads: hot %.0f, Mongo %.0f%n",
+                THREADS, attempts / (hotNanos / 1e9), attempts / (coldNanos / 1e9));
+        assertEquals(0, productRepository.findById(hot).orElseThrow().getStockQuantity());
+        assertEquals(0, productRepository.findById(cold).orElseThrow().getStockQuantity());
+    }
+
+    // Runs `attempts` reservations on THREADS threads; returns how many succeeded
+    private static int run(int attempts, Function<Integer, ?> reservation) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i; (i = next.getAndIncrement()) < attempts; ) {
+                        try {
+                            reservation.apply(i);
+                            succeeded++;
+                        } catch (InsufficientStockException e) {
+                            // sold out
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : futures) total += future.get();
+            return total;
+        }
+    }
+
+    private String product(String name, int stock) {
+        Product product = new Product();
+        product.setName("Hot inventory test " + name);
+        product.setPrice(1.0);
+        product.setStockQuantity(stock);
+        product.setStatus(Product.statusFor(stock));
+        String id = productRepository.save(product).getId();
+        created.add(id);
+        return id;
+    }
+}
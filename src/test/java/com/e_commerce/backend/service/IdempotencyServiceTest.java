@@ -0,0 +1,97 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.IdempotencyRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String userId = "idempotency-test-" + UUID.randomUUID() + "@example.com";
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.remove(new Query(Criteria.where("id").regex("^" + userId.replace(".", "\\."))), IdempotencyRecord.class);
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        Map<String, Object> payload = Map.of("cartId", "c-1");
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(userId, "key-1", payload, () -> {
+                        int run = runs.incrementAndGet();
+                        sleep(200); // keep it in flight while the duplicates arrive
+                        return ResponseEntity.ok(Map.of("orderId", "order-" + run));
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<?>> future : futures) {
+                ResponseEntity<?> response = future.get();
+                assertEquals(200, response.getStatusCode().value());
+                assertEquals("order-1", ((Map<?, ?>) response.getBody()).get("orderId"));
+            }
+        }
+        assertEquals(1, runs.get());
+
+        // A later retry is replayed from the store
+        ResponseEntity<?> replayed = idempotencyService.execute(userId, "key-1", payload, () -> {
+            throw new AssertionError("must not run again");
+        });
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("order-1", ((Map<?, ?>) replayed.getBody()).get("orderId"));
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRefused() {
+        idempotencyService.execute(userId, "key-2", Map.of("cartId", "c-1"), () -> ResponseEntity.ok(Map.of("orderId", "o")));
+        ResponseEntity<?> response = idempotencyService.execute(userId, "key-2", Map.of("cartId", "c-2"), () -> ResponseEntity.ok(Map.of()));
+        assertEquals(422, response.getStatusCode().value());
+    }
+
+    @Test
+    void serverErrorReleasesTheKey() {
+        Map<String, Object> payload = Map.of("cartId", "c-1");
+        idempotencyService.execute(userId, "key-3", payload, () -> ResponseEntity.status(503).body(Map.of("message", "down")));
+        ResponseEntity<?> retried = idempotencyService.execute(userId, "key-3", payload, () -> ResponseEntity.ok(Map.of("orderId", "o")));
+        assertEquals(200, retried.getStatusCode().value());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
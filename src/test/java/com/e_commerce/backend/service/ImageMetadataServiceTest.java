@@ -0,0 +1,152 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.ImageMetadata;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.ImageMetadataRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageMetadataServiceTest {
+
+    private static final String BASE83 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dominantColorIsTheMostCommonBucket() {
+        BufferedImage image = image(32, 24, new Color(255, 0, 0));
+        paint(image, new Color(0, 0, 255), 0, 0, 10, 10); // 100 of 768 pixels
+        assertEquals("#ff0000", ImageMetadataService.dominantColor(image));
+
+        // Shades within one bucket are averaged
+        BufferedImage shades = image(2, 1, new Color(16, 32, 48));
+        shades.setRGB(1, 0, new Color(18, 34, 50).getRGB());
+        assertEquals("#112131", ImageMetadataService.dominantColor(shades));
+    }
+
+    @Test
+    void blurHashCarriesTheAverageColor() {
+        String hash = ImageMetadataService.blurHash(image(32, 24, new Color(200, 120, 40)), 4, 3);
+
+        assertEquals(28, hash.length()); // size flag, max AC, DC (4) and 11 ACs (2 each)
+        assertEquals('L', hash.charAt(0)); // (4 - 1) + (3 - 1) * 9 = 21
+        assertEquals((200 << 16) | (120 << 8) | 40, decode83(hash.substring(2, 6))); // DC, back in sRGB
+
+        assertEquals(6, ImageMetadataService.blurHash(image(8, 8, Color.WHITE), 1, 1).length()); // no ACs
+    }
+
+    @Test
+    void blurHashEncodesAHorizontalGradient() {
+        BufferedImage gradient = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 32; x++) {
+            int v = x * 255 / 31;
+            paint(gradient, new Color(v, v, v), x, 0, 1, 24);
+        }
+        String hash = ImageMetadataService.blurHash(gradient, 4, 3);
+
+        assertEquals(28, hash.length());
+        // First AC (i = 1, j = 0): cos(pi x / w) is positive on the dark left half, so it is negative
+        int ac = decode83(hash.substring(6, 8));
+        assertTrue(ac / (19 * 19) < 9, hash);
+        assertEquals(ac / (19 * 19), ac / 19 % 19); // grey: same for every channel
+        assertEquals(ac / (19 * 19), ac % 19);
+    }
+
+    @Test
+    void computeMeasuresAnImageFile() throws IOException {
+        BufferedImage landscape = image(640, 480, new Color(255, 0, 0));
+        paint(landscape, Color.BLUE, 0, 0, 100, 100);
+        ImageMetadata metadata = ImageMetadataService.compute(write("landscape.png", landscape), "/uploads/products/a.png");
+
+        assertEquals("/uploads/products/a.png", metadata.getUrl());
+        assertEquals(640, metadata.getWidth());
+        assertEquals(480, metadata.getHeight());
+        assertEquals("#ff0000", metadata.getDominantColor());
+        assertEquals('L', metadata.getPlaceholder().charAt(0)); // 4 x 3 components
+
+        ImageMetadata portrait = ImageMetadataService.compute(write("portrait.png", image(300, 500, Color.GREEN)), "/uploads/products/b.png");
+        assertEquals('T', portrait.getPlaceholder().charAt(0)); // 3 x 4: (3 - 1) + (4 - 1) * 9 = 29
+    }
+
+    @Test
+    void undecodableFilesHaveNoMetadata() throws IOException {
+        Path file = dir.resolve("not-an-image.png");
+        Files.write(file, new byte[]{1, 2, 3, 4});
+        assertNull(ImageMetadataService.compute(file, "/uploads/products/c.png"));
+    }
+
+    @Test
+    void oversizedImagesAreRefusedFromTheHeader() throws IOException {
+        // 56 megapixels, but 1 bit each and a few KB as a PNG: cheap to write, costly to decode
+        Path file = write("huge.png", new BufferedImage(8000, 7000, BufferedImage.TYPE_BYTE_BINARY));
+        IOException e = assertThrows(IOException.class, () -> ImageMetadataService.compute(file, "/uploads/products/d.png"));
+        assertTrue(e.getMessage().contains("8000x7000"), e.getMessage());
+    }
+
+    @Test
+    void lookupKeepsPositionsOfUnknownImages() {
+        ImageMetadataRepository repository = mock(ImageMetadataRepository.class);
+        ImageMetadataService service = new ImageMetadataService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        when(repository.findAllById(any())).thenReturn(List.of(metadata("https://cdn.example.com/b.jpg")));
+
+        List<Product.ImageInfo> infos = service.lookup(List.of("https://cdn.example.com/a.jpg", "https://cdn.example.com/b.jpg"), false);
+
+        assertEquals(2, infos.size());
+        assertNull(infos.get(0));
+        assertEquals("https://cdn.example.com/b.jpg", infos.get(1).getUrl());
+    }
+
+    private Path write(String name, BufferedImage image) throws IOException {
+        Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private static ImageMetadata metadata(String url) {
+        ImageMetadata metadata = new ImageMetadata();
+        metadata.setUrl(url);
+        metadata.setWidth(10);
+        metadata.setHeight(10);
+        return metadata;
+    }
+
+    private static BufferedImage image(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        paint(image, color, 0, 0, width, height);
+        return image;
+    }
+
+    private static void paint(BufferedImage image, Color color, int x, int y, int width, int height) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(color);
+            g.fillRect(x, y, width, height);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static int decode83(String chars) {
+        return chars.chars().reduce(0, (value, c) -> value * 83 + BASE83.indexOf(c));
+    }
+}
@@ -0,0 +1,108 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class InventoryServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(created);
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        int stock = 10;
+        int buyers = 64;
+        String pencils = product("Pencils", stock);
+        String paper = product("Paper", 1000);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+            for (int i = 0; i < buyers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        inventoryService.confirm(inventoryService.reserve(Map.of(pencils, 1, paper, 2)));
+                        return true;
+                    } catch (InsufficientStockException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get()) succeeded++;
+            }
+            assertEquals(stock, succeeded);
+        }
+
+        Product sold = productRepository.findById(pencils).orElseThrow();
+        assertEquals(0, sold.getStockQuantity());
+        assertEquals(Product.OUT_OF_STOCK, sold.getStatus());
+        // Paper from the failed attempts was rolled back
+        assertEquals(1000 - 2 * stock, productRepository.findById(paper).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void shortLineRollsBackTheOthers() {
+        String available = product("Ruler", 5);
+        String scarce = product("Compass", 1);
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> inventoryService.reserve(Map.of(available, 2, scarce, 3)));
+        assertEquals(List.of(scarce), e.getProductIds());
+        assertEquals(5, productRepository.findById(available).orElseThrow().getStockQuantity());
+        assertEquals(Product.IN_STOCK, productRepository.findById(available).orElseThrow().getStatus());
+        assertEquals(1, productRepository.findById(scarce).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void releasePutsStockBack() {
+        String id = product("Eraser", 3);
+        InventoryService.Reservation reservation = inventoryService.reserve(Map.of(id, 3));
+        assertEquals(Product.OUT_OF_STOCK, productRepository.findById(id).orElseThrow().getStatus());
+
+        inventoryService.release(reservation);
+        Product restored = productRepository.findById(id).orElseThrow();
+        assertEquals(3, restored.getStockQuantity());
+        assertEquals(Product.IN_STOCK, restored.getStatus());
+    }
+
+    private String product(String name, int stock) {
+        Product product = new Product();
+        product.setName("Inventory test " + name);
+        product.setPrice(1.0);
+        product.setStockQuantity(stock);
+        product.setStatus(Product.statusFor(stock));
+        String id = productRepository.save(product).getId();
+        created.add(id);
+        return id;
+    }
+}
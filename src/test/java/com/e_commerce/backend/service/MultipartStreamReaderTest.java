@@ -0,0 +1,109 @@
+package com.e_commerce.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----formBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void readsPartsAcrossArbitraryReadBoundaries() throws IOException {
+        byte[] file = new byte[200_000];
+        new Random(42).nextBytes(file);
+        // Bytes that look like the start of a delimiter must survive as content
+        System.arraycopy("\r\n--".getBytes(StandardCharsets.ISO_8859_1), 0, file, 1000, 4);
+        byte[] body = body(file);
+
+        // Trickle 1..7 bytes per read so delimiters and headers are split between reads
+        MultipartStreamReader reader = new MultipartStreamReader(new TricklingInputStream(body), BOUNDARY);
+
+        MultipartStreamReader.Part first = reader.next();
+        assertEquals("note", first.name());
+        assertNull(first.filename());
+
+        MultipartStreamReader.Part second = reader.next(); // skips the unread "note" part
+        assertEquals("file", second.name());
+        assertEquals("photo.jpg", second.filename());
+        assertEquals("image/jpeg", second.contentType());
+        assertArrayEquals(file, second.body().readAllBytes());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    void truncatedBodyFails() {
+        byte[] body = body(new byte[5000]);
+        byte[] truncated = Arrays.copyOf(body, body.length - 100);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(truncated), BOUNDARY);
+        assertThrows(IOException.class, () -> {
+            reader.next();
+            reader.next().body().readAllBytes();
+        });
+    }
+
+    @Test
+    void sniffsImageTypesFromMagicBytes() throws IOException {
+        assertEquals("jpg", sniff(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals("png", sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0}));
+        assertEquals("gif", sniff("GIF89a....".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("webp", sniff("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1)));
+        assertNull(sniff("<svg xmlns=".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static String sniff(byte[] bytes) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes), 16);
+        String extension = StreamingUploadService.sniffExtension(in);
+        assertArrayEquals(bytes, in.readAllBytes()); // sniffing must not consume the stream
+        return extension;
+    }
+
+    private static byte[] body(byte[] file) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n\r\n"
+                + "hello\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"photo.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(file);
+        out.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    private static final class TricklingInputStream extends InputStream {
+        private final byte[] data;
+        private final Random random = new Random(7);
+        private int position;
+
+        TricklingInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) return -1;
+            int n = Math.min(Math.min(len, 1 + random.nextInt(7)), data.length - position);
+            System.arraycopy(data, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.OrderSummaryDTO;
+import com.e_commerce.backend.dto.PageResponseDTO;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class OrderHistoryServiceTest {
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final String userId = "history-test-" + UUID.randomUUID() + "@example.com";
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAllById(created);
+    }
+
+    @Test
+    void pagesWalkAllOrdersNewestFirst() {
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Orders 3 and 4 share a timestamp, so the _id tie-break has to carry the cursor
+            LocalDateTime createdAt = base.minusMinutes(i == 4 ? 3 : i);
+            expected.add(order(createdAt, i + 1).getId());
+        }
+        // Same timestamp: the larger (later) _id comes first
+        expected.set(3, created.get(4));
+        expected.set(4, created.get(3));
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageResponseDTO<OrderSummaryDTO> page = orderHistoryService.findPage(userId, cursor, 3);
+            page.getItems().forEach(summary -> seen.add(summary.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expected, seen);
+
+        OrderSummaryDTO first = orderHistoryService.findPage(userId, null, 1).getItems().get(0);
+        assertEquals(1, first.getItemCount());
+        assertEquals("img-1.jpg", first.getFirstImage());
+        assertEquals(1.0, first.getTotal());
+    }
+
+    @Test
+    void emptyHistoryAndBadCursor() {
+        PageResponseDTO<OrderSummaryDTO> page = orderHistoryService.findPage(userId, null, null);
+        assertEquals(0, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> orderHistoryService.findPage(userId, "not-a-cursor", 5));
+    }
+
+    private Order order(LocalDateTime createdAt, int n) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setCreatedAt(createdAt);
+        order.setTotal((double) n);
+        for (int i = 0; i < n; i++) {
+            Order.OrderItem item = new Order.OrderItem();
+            item.setProductId("p-" + i);
+            item.setQuantity(1);
+            item.setImages(new ArrayList<>(List.of("img-" + (i + 1) + ".jpg")));
+            order.getItems().add(item);
+        }
+        Order saved = orderRepository.save(order);
+        created.add(saved.getId());
+        return saved;
+    }
+}
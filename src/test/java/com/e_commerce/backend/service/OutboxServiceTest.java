@@ -0,0 +1,188 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.OutboxMessage;
+import com.e_commerce.backend.repository.OrderRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The other test contexts set outbox.enabled=false: they share the database, and their
+// dispatchers would claim these messages too
+@SpringBootTest(properties = {"outbox.enabled=true", "outbox.poll-interval=100ms", "outbox.max-attempts=2"})
+class OutboxServiceTest {
+
+    private static final FakeSmtpServer smtp = FakeSmtpServer.start();
+
+    @DynamicPropertySource
+    static void mail(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::port);
+    }
+
+    @AfterAll
+    static void stopSmtp() throws IOException {
+        smtp.close();
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final List<String> orderIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAllById(orderIds);
+        mongoTemplate.remove(new Query(Criteria.where("orderId").in(orderIds)), OutboxMessage.class);
+    }
+
+    @Test
+    void confirmationMailIsSentAfterTheOrderIsStored() throws Exception {
+        Order order = new Order();
+        order.setId(new ObjectId().toHexString());
+        order.setUserId("buyer@example.com");
+        order.setTotal(4.5);
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId("p-1");
+        item.setName("Pencil case");
+        item.setPrice(4.5);
+        item.setQuantity(1);
+        order.getItems().add(item);
+        orderIds.add(order.getId());
+
+        outboxService.record(order.getId(), OutboxMessage.ORDER_CONFIRMATION);
+        orderRepository.save(order);
+        outboxService.signal();
+
+        String mail = smtp.messages.poll(10, TimeUnit.SECONDS);
+        assertNotNull(mail, "no mail within 10s");
+        assertTrue(mail.contains(order.getId()));
+        assertTrue(mail.contains("Pencil case"));
+        assertEquals(OutboxMessage.DONE, awaitFinalStatus(order.getId()));
+    }
+
+    @Test
+    void messagesOfAnOrderThatWasNeverStoredAreDiscarded() throws Exception {
+        String orderId = new ObjectId().toHexString();
+        orderIds.add(orderId);
+        outboxService.record(orderId, OutboxMessage.LOW_STOCK_CHECK);
+        outboxService.signal();
+
+        // First attempt fails, the retry (after ~1s backoff) gives up
+        assertEquals(OutboxMessage.DISCARDED, awaitFinalStatus(orderId));
+    }
+
+    private String awaitFinalStatus(String orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            OutboxMessage message = mongoTemplate.findOne(new Query(Criteria.where("orderId").is(orderId)), OutboxMessage.class);
+            if (message != null && message.getProcessedAt() != null) return message.getStatus();
+            Thread.sleep(50);
+        }
+        return null;
+    }
+
+    // Just enough SMTP for JavaMailSender: accepts every command and keeps each DATA block
+    static final class FakeSmtpServer implements AutoCloseable {
+        final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        private final ServerSocket socket;
+
+        private FakeSmtpServer(ServerSocket socket) {
+            this.socket = socket;
+        }
+
+        static FakeSmtpServer start() {
+            try {
+                FakeSmtpServer server = new FakeSmtpServer(new ServerSocket(0));
+                Thread.ofVirtual().start(server::acceptLoop);
+                return server;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    Thread.ofVirtual().start(() -> session(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket client) {
+            try (client;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            StringBuilder data = new StringBuilder();
+                            while ((line = in.readLine()) != null && !line.equals(".")) data.append(line).append('\n');
+                            messages.add(data.toString());
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // client went away
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.BulkProductUpdateDTO;
+import com.e_commerce.backend.dto.BulkUpdateResultDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class ProductBulkUpdateServiceTest {
+
+    @Autowired
+    private ProductBulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(created);
+    }
+
+    @Test
+    void repeatedDecrementsInOneBatchNeverGoNegative() {
+        String pens = product(5);
+        String paper = product(0);
+
+        List<BulkUpdateResultDTO> results = bulkUpdateService.apply(List.of(
+                delta(pens, -3), delta(pens, -3), price(paper, 2.5), delta(new ObjectId().toHexString(), -1)));
+
+        // Unordered: either decrement may be the one that fits
+        long changed = results.subList(0, 2).stream().filter(r -> BulkUpdateResultDTO.CHANGED.equals(r.getResult())).count();
+        long failed = results.subList(0, 2).stream().filter(r -> BulkUpdateResultDTO.FAILED.equals(r.getResult())).count();
+        assertEquals(1, changed);
+        assertEquals(1, failed);
+        assertEquals(BulkUpdateResultDTO.CHANGED, results.get(2).getResult());
+        assertEquals(BulkUpdateResultDTO.NOT_FOUND, results.get(3).getResult());
+
+        Product stored = productRepository.findById(pens).orElseThrow();
+        assertEquals(2, stored.getStockQuantity());
+        assertEquals(Product.IN_STOCK, stored.getStatus());
+        assertEquals(2.5, productRepository.findById(paper).orElseThrow().getPrice());
+    }
+
+    @Test
+    void concurrentBatchesCannotOversell() throws Exception {
+        int stock = 10;
+        String pens = product(stock);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BulkUpdateResultDTO>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return bulkUpdateService.apply(List.of(delta(pens, -1))).get(0);
+                }));
+            }
+            start.countDown();
+            int changed = 0;
+            for (Future<BulkUpdateResultDTO> future : futures) {
+                if (BulkUpdateResultDTO.CHANGED.equals(future.get().getResult())) changed++;
+            }
+            assertEquals(stock, changed);
+        }
+
+        Product stored = productRepository.findById(pens).orElseThrow();
+        assertEquals(0, stored.getStockQuantity());
+        assertEquals(Product.OUT_OF_STOCK, stored.getStatus());
+    }
+
+    @Test
+    void unchangedIsDecidedByTheWriteAndNoTagIsLeftBehind() {
+        String pens = product(5);
+        String paper = product(5);
+
+        List<BulkUpdateResultDTO> results = bulkUpdateService.apply(List.of(
+                price(pens, 1.0), stock(pens, 5), stock(paper, 7)));
+
+        assertEquals(List.of(BulkUpdateResultDTO.UNCHANGED, BulkUpdateResultDTO.UNCHANGED, BulkUpdateResultDTO.CHANGED),
+                results.stream().map(BulkUpdateResultDTO::getResult).toList());
+        assertEquals(7, productRepository.findById(paper).orElseThrow().getStockQuantity());
+
+        for (String id : List.of(pens, paper)) {
+            Document raw = mongoTemplate.findOne(new Query(Criteria.where("_id").is(new ObjectId(id))), Document.class,
+                    mongoTemplate.getCollectionName(Product.class));
+            Document tags = raw.get("bulkUpdates", Document.class);
+            assertTrue(tags == null || tags.isEmpty(), String.valueOf(tags));
+        }
+    }
+
+    private String product(int stock) {
+        Product product = new Product();
+        product.setName("Bulk test product");
+        product.setPrice(1.0);
+        product.setStockQuantity(stock);
+        product.setStatus(Product.statusFor(stock));
+        String id = productRepository.save(product).getId();
+        created.add(id);
+        return id;
+    }
+
+    private static BulkProductUpdateDTO delta(String id, int delta) {
+        BulkProductUpdateDTO update = new BulkProductUpdateDTO();
+        update.setId(id);
+        update.setStockDelta(delta);
+        return update;
+    }
+
+    private static BulkProductUpdateDTO stock(String id, int stock) {
+        BulkProductUpdateDTO update = new BulkProductUpdateDTO();
+        update.setId(id);
+        update.setStockQuantity(stock);
+        return update;
+    }
+
+    private static BulkProductUpdateDTO price(String id, double price) {
+        BulkProductUpdateDTO update = new BulkProductUpdateDTO();
+        update.setId(id);
+        update.setPrice(price);
+        return update;
+    }
+}
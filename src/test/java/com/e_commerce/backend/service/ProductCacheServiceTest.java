@@ -0,0 +1,124 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheServiceTest {
+
+    private static final int CALLERS = 200;
+
+    private ProductRepository productRepository;
+    private ProductCacheService productCache;
+    private ProductVersionService versionService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productCache = new ProductCacheService();
+        ReflectionTestUtils.setField(productCache, "productRepository", productRepository);
+        ReflectionTestUtils.setField(productCache, "meterRegistry", new SimpleMeterRegistry());
+        versionService = new ProductVersionService();
+        ReflectionTestUtils.setField(productCache, "versionService", versionService);
+        ReflectionTestUtils.setField(productCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(productCache, "ttl", Duration.ofMinutes(1));
+        productCache.init();
+    }
+
+    @Test
+    void concurrentMissesShareOneRepositoryCall() throws Exception {
+        AtomicInteger arrived = new AtomicInteger();
+        Product product = new Product();
+        product.setId("sku-1");
+
+        // The lookup only returns once every caller has arrived, so all of them overlap the in-flight load
+        when(productRepository.findById(anyString())).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (arrived.get() < CALLERS && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            return Optional.of(product);
+        });
+
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    arrived.incrementAndGet();
+                    return productCache.findById("sku-1");
+                }));
+            }
+        }
+
+        for (Future<Optional<Product>> result : results) {
+            assertTrue(result.get().isPresent());
+            assertEquals("sku-1", result.get().get().getId());
+        }
+        verify(productRepository, times(1)).findById("sku-1");
+    }
+
+    @Test
+    void missAfterAWriteDoesNotJoinTheOlderLoad() throws Exception {
+        CountDownLatch firstLoadStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstLoad = new CountDownLatch(1);
+        Product before = product("sku-1", 1.0);
+        Product after = product("sku-1", 2.0);
+        when(productRepository.findById("sku-1")).thenAnswer(invocation -> {
+            if (firstLoadStarted.getCount() > 0) {
+                firstLoadStarted.countDown();
+                releaseFirstLoad.await(5, TimeUnit.SECONDS);
+                return Optional.of(before);
+            }
+            return Optional.of(after);
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Optional<Product>> stale = executor.submit(() -> productCache.findById("sku-1"));
+            assertTrue(firstLoadStarted.await(5, TimeUnit.SECONDS));
+
+            // Listener order as in the application: invalidate, then bump the version
+            ProductChangedEvent write = ProductChangedEvent.saved(after);
+            productCache.onProductChanged(write);
+            versionService.onProductChanged(write);
+
+            assertEquals(2.0, productCache.findById("sku-1").get().getPrice());
+            releaseFirstLoad.countDown();
+            assertEquals(1.0, stale.get().get().getPrice());
+        }
+
+        // The load from before the write was not cached over the newer one
+        assertEquals(2.0, productCache.findById("sku-1").get().getPrice());
+        verify(productRepository, times(2)).findById("sku-1");
+    }
+
+    private static Product product(String id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,95 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.FacetResultDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private MongoTemplate mongoTemplate;
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        index = new ProductFacetIndex();
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void countsIgnoreTheFacetsOwnSelection() {
+        catalog(product("1", "Pens", "Blue"), product("2", "Pens", "Red"), product("3", "Paper", "Blue"));
+        index.rebuild();
+
+        FacetResultDTO result = index.query(Map.of("color", List.of("Blue")));
+        assertEquals(2, result.getTotal());
+        assertEquals(Map.of("Pens", 1, "Paper", 1), result.getFacets().get("mainCategory"));
+        assertEquals(Map.of("Blue", 2, "Red", 1), result.getFacets().get("color"));
+
+        result = index.query(Map.of("color", List.of("Blue"), "mainCategory", List.of("Pens")));
+        assertEquals(1, result.getTotal());
+    }
+
+    @Test
+    void changesFollowSavesAndDeletes() {
+        catalog(product("1", "Pens", "Blue"), product("2", "Pens", "Red"));
+        index.rebuild();
+
+        index.onProductChanged(ProductChangedEvent.saved(product("1", "Pens", "Green")));
+        index.onProductChanged(ProductChangedEvent.deleted("2"));
+
+        FacetResultDTO result = index.query(Map.of());
+        assertEquals(1, result.getTotal());
+        assertEquals(Map.of("Green", 1), result.getFacets().get("color"));
+    }
+
+    @Test
+    void changesDuringARebuildAreNotLost() {
+        catalog(product("1", "Pens", "Blue"), product("2", "Pens", "Red"));
+        index.rebuild();
+
+        // The stream has already passed product 1 when it is recolored and product 3 is added
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenAnswer(invocation ->
+                Stream.of(product("1", "Pens", "Blue"), product("2", "Pens", "Red")).peek(product -> {
+                    if (product.getId().equals("2")) {
+                        index.onProductChanged(ProductChangedEvent.saved(product("1", "Pens", "Green")));
+                        index.onProductChanged(ProductChangedEvent.saved(product("3", "Paper", "Blue")));
+                        index.onProductChanged(ProductChangedEvent.deleted("2"));
+                    }
+                }));
+        index.rebuild();
+
+        FacetResultDTO result = index.query(Map.of());
+        assertEquals(2, result.getTotal());
+        assertEquals(Map.of("Green", 1, "Blue", 1), result.getFacets().get("color"));
+        assertFalse(result.getFacets().get("color").containsKey("Red"));
+    }
+
+    private void catalog(Product... products) {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenAnswer(invocation -> Stream.of(products));
+    }
+
+    private static Product product(String id, String mainCategory, String color) {
+        Product product = new Product();
+        product.setId(id);
+        product.setMainCategory(mainCategory);
+        product.setColor(color);
+        return product;
+    }
+}
@@ -0,0 +1,149 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.ImportReportDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import com.e_commerce.backend.repository.ProductRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "outbox.enabled=false")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllById(created);
+    }
+
+    @Test
+    void parsesQuotedCsvFields() {
+        assertEquals(List.of("a", "b", "c"), ProductImportService.parseCsvLine("a,b,c"));
+        assertEquals(List.of("", "x", ""), ProductImportService.parseCsvLine(",x,"));
+        assertEquals(List.of("Pens, blue", "12"), ProductImportService.parseCsvLine("\"Pens, blue\",12"));
+        assertEquals(List.of("The \"best\" pen"), ProductImportService.parseCsvLine("\"The \"\"best\"\" pen\""));
+        assertEquals(List.of("a|b.jpg", ""), ProductImportService.parseCsvLine("\"a|b.jpg\",\"\""));
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseCsvLine("\"open,1"));
+    }
+
+    @Test
+    void upsertOnlySetsTheColumnsInTheRow() throws IOException {
+        Product existing = new Product();
+        existing.setName("Sketch Pencils");
+        existing.setBrandName("Staedtler");
+        existing.setPrice(4.0);
+        existing.setStockQuantity(12);
+        existing.setStatus(Product.IN_STOCK);
+        existing.setImages(new ArrayList<>(List.of("/uploads/pencils.jpg")));
+        Product.ImageInfo image = new Product.ImageInfo();
+        image.setUrl("/uploads/pencils.jpg");
+        image.setWidth(800);
+        existing.setImageMetadata(new ArrayList<>(List.of(image)));
+        existing.setAverageRating(4.5);
+        existing.setReviewCount(8);
+        existing = productRepository.save(existing);
+        created.add(existing.getId());
+
+        String csv = "id,name,price\n" + existing.getId() + ",Sketch Pencils HB,4.5\n";
+        ImportReportDTO report = importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, report.getUpserted());
+
+        Product stored = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("Sketch Pencils HB", stored.getName());
+        assertEquals(4.5, stored.getPrice());
+        assertEquals("Staedtler", stored.getBrandName());
+        assertEquals(12, stored.getStockQuantity());
+        assertEquals(Product.IN_STOCK, stored.getStatus());
+        assertEquals(List.of("/uploads/pencils.jpg"), stored.getImages());
+        assertEquals(800, stored.getImageMetadata().get(0).getWidth());
+        assertEquals(4.5, stored.getAverageRating());
+        assertEquals(8, stored.getReviewCount());
+
+        // Stock in the row recomputes status; a JSON row behaves the same way
+        String ndjson = "{\"id\":\"" + existing.getId() + "\",\"name\":\"Sketch Pencils HB\",\"price\":4.5,\"stockQuantity\":0}\n";
+        importService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        stored = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals(0, stored.getStockQuantity());
+        assertEquals(Product.OUT_OF_STOCK, stored.getStatus());
+        assertEquals(List.of("/uploads/pencils.jpg"), stored.getImages());
+    }
+
+    @Test
+    void upsertOfAnUnknownIdCreatesTheProductWithDefaults() throws IOException {
+        String id = new ObjectId().toHexString();
+        created.add(id);
+        String csv = "id,name,price\n" + id + ",Ruler,1.2\n";
+        importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        Product stored = productRepository.findById(id).orElseThrow();
+        assertEquals("Ruler", stored.getName());
+        assertEquals(Product.OUT_OF_STOCK, stored.getStatus());
+        assertEquals(List.of(), stored.getImages());
+        assertEquals(List.of(), stored.getImageMetadata());
+    }
+
+    // Compares the bulk import with saving products one by one the way POST /api/products does.
+    // Run with -Dbenchmark=true; prints both rates rather than asserting on wall-clock time.
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void importThroughputAgainstOneByOneSaves() throws IOException {
+        int rows = 20_000;
+        String brand = "import-benchmark-" + new ObjectId().toHexString();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append("{\"name\":\"Pencil ").append(i).append("\",\"brandName\":\"").append(brand)
+                    .append("\",\"price\":1.5,\"stockQuantity\":10}\n");
+        }
+        try {
+            ImportReportDTO report = importService.importNdjson(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < rows; i++) {
+                Product product = new Product();
+                product.setName("Pencil " + i);
+                product.setBrandName(brand);
+                product.setPrice(1.5);
+                product.setStockQuantity(10);
+                product.setStatus(Product.statusFor(10));
+                eventPublisher.publishEvent(ProductChangedEvent.saved(productRepository.save(product)));
+            }
+            double oneByOne = rows * 1_000_000_000.0 / (System.nanoTime() - start);
+
+            System.out.printf("import: %d rows, %.0f rows/s bulk vs %.0f rows/s one by one (%.1fx)%n",
+                    rows, report.getRowsPerSecond(), oneByOne, report.getRowsPerSecond() / oneByOne);
+            assertEquals(rows, report.getInserted());
+        } finally {
+            mongoTemplate.remove(new Query(Criteria.where("brandName").is(brand)), Product.class);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private MongoTemplate mongoTemplate;
+
+    private final List<Product> catalog = List.of(
+            product("pencils", "Graphite Pencils", "Staedtler", "12 HB pencils for sketching"),
+            product("case", "Pencil Case", "Faber", "Zip case that holds pencils and erasers"),
+            product("canvas", "Canvas Panel", "Winsor", "Primed cotton canvas"),
+            product("glass", "Magnifying Glass", "Generic", "Glass lens with a handle"),
+            product("notebook", "Spiral Notebook", "Oxford", "Ruled paper, pencil loop on the side"));
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenAnswer(invocation -> catalog.stream());
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        ProductSearchIndex index = index();
+
+        ProductSearchIndex.SearchHits hits = index.search("pencil", 10);
+        assertEquals(3, hits.total());
+        // "pencils" twice (name and description) beats one name match, which beats a description mention
+        assertEquals(List.of("pencils", "case", "notebook"), hits.productIds());
+        assertEquals(List.of("pencils"), index.search("pencil", 1).productIds());
+    }
+
+    @Test
+    void allWordsMustMatch() {
+        ProductSearchIndex index = index();
+        assertEquals(List.of("case"), index.search("pencil erasers", 10).productIds());
+        assertEquals(0, index.search("pencil unicorn", 10).total());
+    }
+
+    @Test
+    void phrasesMatchAdjacentWordsOnly() {
+        ProductSearchIndex index = index();
+        assertEquals(List.of("case"), index.search("\"pencil case\"", 10).productIds());
+        assertEquals(List.of("notebook"), index.search("\"pencil loop\"", 10).productIds());
+        // Both words occur in the notebook, but not next to each other
+        assertEquals(0, index.search("\"ruled loop\"", 10).total());
+    }
+
+    @Test
+    void prefixesMatchStemmedTerms() {
+        ProductSearchIndex index = index();
+        assertEquals(3, index.search("penc*", 10).total());
+        assertEquals(3, index.search("pencils*", 10).total());
+        assertEquals(List.of("canvas"), index.search("canvas*", 10).productIds());
+        assertEquals(List.of("glass"), index.search("glas*", 10).productIds());
+        assertEquals(List.of("case"), index.search("zip pen*", 10).productIds());
+    }
+
+    @Test
+    void changesAreSearchableImmediately() {
+        ProductSearchIndex index = index();
+        index.onProductChanged(ProductChangedEvent.saved(product("glass", "Desk Lamp", "Generic", "LED")));
+        index.onProductChanged(ProductChangedEvent.deleted("canvas"));
+
+        assertEquals(0, index.search("glass", 10).total());
+        assertEquals(0, index.search("canvas", 10).total());
+        assertEquals(List.of("glass"), index.search("lamp", 10).productIds());
+    }
+
+    @Test
+    void changesDuringARebuildAreNotLost() {
+        ProductSearchIndex index = index();
+
+        // The stream has already passed "glass" when it is renamed and "lamp" is added
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenAnswer(invocation ->
+                catalog.stream().peek(product -> {
+                    if (product.getId().equals("notebook")) {
+                        index.onProductChanged(ProductChangedEvent.saved(product("glass", "Reading Glasses", "Generic", "Frames")));
+                        index.onProductChanged(ProductChangedEvent.saved(product("lamp", "Desk Lamp", "Generic", "LED")));
+                        index.onProductChanged(ProductChangedEvent.deleted("canvas"));
+                    }
+                }));
+        index.rebuild();
+
+        assertEquals(0, index.search("magnifying", 10).total());
+        assertEquals(List.of("glass"), index.search("reading", 10).productIds());
+        assertEquals(List.of("lamp"), index.search("lamp", 10).productIds());
+        assertEquals(0, index.search("canvas", 10).total());
+    }
+
+    @Test
+    void snapshotRoundTripsTheAnalysis() throws Exception {
+        ProductSearchIndex first = index();
+        Path snapshot = dir.resolve("search-index.bin");
+        assertTrue(Files.exists(snapshot));
+
+        ProductSearchIndex second = new ProductSearchIndex();
+        ReflectionTestUtils.setField(second, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(second, "snapshotPath", snapshot.toString());
+        Map<?, ?> stored = ReflectionTestUtils.invokeMethod(second, "readSnapshot");
+        assertEquals(catalog.size(), stored.size());
+
+        second.rebuild();
+        for (String query : List.of("pencil", "\"pencil case\"", "canvas*", "glass handle")) {
+            assertEquals(first.search(query, 10), second.search(query, 10));
+        }
+    }
+
+    private ProductSearchIndex index() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(index, "snapshotPath", dir.resolve("search-index.bin").toString());
+        index.rebuild();
+        return index;
+    }
+
+    private static Product product(String id, String name, String brand, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrandName(brand);
+        product.setDescription(description);
+        return product;
+    }
+}
@@ -0,0 +1,127 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.dto.SuggestionDTO;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestIndexTest {
+
+    private static final String[] BRANDS = {"Faber-Castell", "Staedtler", "Pilot", "Bic", "Crayola", "Deli", "Maped", "Stabilo"};
+    private static final String[] TYPES = {"Pencil", "Pen", "Eraser", "Notebook", "Ruler", "Marker", "Crayon", "Backpack"};
+    private static final String[] COLORS = {"Blue", "Red", "Black", "Green", "Yellow", "Pink"};
+
+    @Test
+    void matchesWordStartsAndRanksByPopularity() throws Exception {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        Product popular = product("1", "Blue Gel Pen", "Pilot", 120, 4.8);
+        Product obscure = product("2", "Pencil Case", "Deli", 0, 0.0);
+        index.onProductChanged(ProductChangedEvent.saved(List.of(popular, obscure)));
+        index.awaitRebuild();
+
+        List<SuggestionDTO> suggestions = index.suggest("pen", 5);
+        assertEquals("Blue Gel Pen", suggestions.get(0).getText());
+        assertTrue(suggestions.stream().anyMatch(s -> "Pencil Case".equals(s.getText())));
+
+        index.onProductChanged(ProductChangedEvent.deleted("1"));
+        index.awaitRebuild();
+        assertFalse(index.suggest("gel", 5).stream().anyMatch(s -> "product".equals(s.getType())));
+    }
+
+    @Test
+    void writesThatDontTouchSuggestionsKeepTheSnapshot() throws Exception {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.onProductChanged(ProductChangedEvent.saved(product("1", "Blue Gel Pen", "Pilot", 3, 4.0)));
+        index.awaitRebuild();
+        Object before = ReflectionTestUtils.getField(index, "snapshot");
+
+        Product restocked = product("1", "Blue Gel Pen", "Pilot", 3, 4.0);
+        restocked.setStockQuantity(40);
+        restocked.setPrice(1.99);
+        index.onProductChanged(ProductChangedEvent.saved(restocked));
+        index.onProductChanged(ProductChangedEvent.deleted("unknown"));
+        index.awaitRebuild();
+        assertSame(before, ReflectionTestUtils.getField(index, "snapshot"));
+
+        index.onProductChanged(ProductChangedEvent.saved(product("1", "Blue Gel Pen", "Pilot", 4, 4.0)));
+        index.awaitRebuild();
+        assertNotSame(before, ReflectionTestUtils.getField(index, "snapshot"));
+    }
+
+    @Test
+    void burstOfWritesEndsInTheLatestState() throws Exception {
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.onProductChanged(ProductChangedEvent.saved(catalog(12_000)));
+
+        // Renames published back to back are coalesced; the last one must win
+        for (int i = 0; i < 500; i++) {
+            index.onProductChanged(ProductChangedEvent.saved(product("7", "Glitter Glue " + i, "Crayola", 10_000, 5.0)));
+        }
+        index.awaitRebuild();
+
+        assertEquals("Glitter Glue 499", index.suggest("glitter", 1).get(0).getText());
+        assertEquals(1, index.suggest("glitter", 5).size());
+        assertEquals(8, index.suggest("b", 8).size());
+    }
+
+    // Opt-in: mvn test -Dbenchmark=true. Prints latencies only; timings depend on the machine.
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void latencyAtTenThousandProducts() throws Exception {
+        List<Product> products = catalog(12_000);
+        ProductSuggestIndex index = new ProductSuggestIndex();
+        index.onProductChanged(ProductChangedEvent.saved(products));
+        index.awaitRebuild();
+
+        String[] queries = {"b", "bl", "blu", "blue p", "pen", "penc", "sta", "faber", "mark", "123", "back", "re"};
+        for (int i = 0; i < 20_000; i++) index.suggest(queries[i % queries.length], 8); // warm up
+
+        int runs = 100_000;
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            index.suggest(queries[i % queries.length], 8);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[runs / 2];
+        long p99 = nanos[(int) (runs * 0.99)];
+        System.out.printf("suggest over %d products: p50=%dus p99=%dus%n", products.size(), p50 / 1000, p99 / 1000);
+    }
+
+    private static List<Product> catalog(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = COLORS[random.nextInt(COLORS.length)] + " " + TYPES[random.nextInt(TYPES.length)] + " " + i;
+            products.add(product(String.valueOf(i), name, brand, random.nextInt(500), random.nextDouble() * 5));
+        }
+        return products;
+    }
+
+    private static Product product(String id, String name, String brand, int reviews, double rating) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrandName(brand);
+        product.setMainCategory("Stationery");
+        product.setSubCategory("Writing");
+        product.setReviewCount(reviews);
+        product.setAverageRating(rating);
+        return product;
+    }
+}
@@ -0,0 +1,35 @@
+package com.e_commerce.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextAnalyzerTest {
+
+    @Test
+    void stemsPluralsAndVerbForms() {
+        assertEquals("pencil", TextAnalyzer.stem("pencils"));
+        assertEquals("eraser", TextAnalyzer.stem("erasers"));
+        assertEquals("box", TextAnalyzer.stem("boxes"));
+        assertEquals("battery", TextAnalyzer.stem("batteries"));
+        assertEquals("color", TextAnalyzer.stem("coloring"));
+        assertEquals("wrap", TextAnalyzer.stem("wrapped"));
+        assertEquals("glass", TextAnalyzer.stem("glass"));
+        assertEquals("compass", TextAnalyzer.stem("compasses"));
+    }
+
+    @Test
+    void leavesShortWordsAndNumbersAlone() {
+        assertEquals("gus", TextAnalyzer.stem("gus"));
+        assertEquals("100s", TextAnalyzer.stem("100s"));
+        assertEquals("campus", TextAnalyzer.stem("campus"));
+    }
+
+    @Test
+    void analyzeFoldsAccentsAndSplitsOnPunctuation() {
+        assertEquals(List.of("creme", "colored", "pencil"), TextAnalyzer.tokenize("Crème colored-pencil"));
+        assertEquals(List.of("creme", "color", "pencil"), TextAnalyzer.analyze("Crème, colored PENCILS!"));
+    }
+}
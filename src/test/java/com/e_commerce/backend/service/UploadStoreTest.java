@@ -0,0 +1,161 @@
+package com.e_commerce.backend.service;
+
+import com.e_commerce.backend.entity.Cart;
+import com.e_commerce.backend.entity.Order;
+import com.e_commerce.backend.entity.Product;
+import com.e_commerce.backend.entity.User;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadStoreTest {
+
+    private static final UploadStore.Area AREA = UploadStore.Area.PRODUCTS;
+
+    private MongoTemplate mongoTemplate;
+    private ImageDerivativeService derivativeService;
+    private UploadStore uploadStore;
+    private final List<Path> blobs = new ArrayList<>();
+    private final Random random = new Random();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        derivativeService = mock(ImageDerivativeService.class);
+        uploadStore = new UploadStore();
+        ReflectionTestUtils.setField(uploadStore, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(uploadStore, "derivativeService", derivativeService);
+        // Sweeps walk the real upload folders: every avatar there counts as referenced
+        when(mongoTemplate.findDistinct(any(Query.class), eq("avatarUrl"), eq(User.class), eq(String.class)))
+                .thenAnswer(invocation -> ((Query) invocation.getArgument(0)).getQueryObject().get("avatarUrl", Document.class).get("$in"));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        for (Path blob : blobs) Files.deleteIfExists(blob);
+    }
+
+    @Test
+    void releaseDeletesAnUnreferencedBlobPastTheGracePeriod() throws IOException {
+        Path blob = blob(Duration.ofHours(2));
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(false);
+
+        uploadStore.release(AREA, List.of(url(blob)));
+
+        assertFalse(Files.exists(blob));
+        verify(derivativeService).deleteDerivatives(blob);
+    }
+
+    @Test
+    void releaseKeepsReferencedAndFreshBlobs() throws IOException {
+        Path referenced = blob(Duration.ofHours(2));
+        Path fresh = blob(Duration.ofMinutes(5));
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(true, false);
+
+        uploadStore.release(AREA, List.of(url(referenced), url(fresh)));
+
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(fresh));
+        verify(derivativeService, never()).deleteDerivatives(any());
+    }
+
+    @Test
+    void releaseIgnoresForeignAndLegacyUrls() {
+        uploadStore.release(AREA, List.of("/avatars/" + "a".repeat(64) + ".jpg", "/products/1700000000000-photo.jpg",
+                "/products/../secret", "https://cdn.example.com/x.jpg"));
+        verify(mongoTemplate, never()).exists(any(Query.class), any(Class.class));
+    }
+
+    @Test
+    void sweepCollectsBlobsReleasedDuringTheGracePeriod() throws IOException {
+        Path released = blob(Duration.ofMinutes(5));
+        Path referenced = blob(Duration.ofHours(3));
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(false);
+
+        // Released while still fresh: kept for now, and nothing would ever revisit it
+        uploadStore.release(AREA, List.of(url(released)));
+        assertTrue(Files.exists(released));
+
+        Files.setLastModifiedTime(released, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        // Everything in the folder but `released` counts as referenced, so other local uploads are never touched
+        when(mongoTemplate.findDistinct(any(Query.class), eq("images"), eq(Product.class), eq(String.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<?> urls = (List<?>) query.getQueryObject().get("images", Document.class).get("$in");
+            return urls.stream().filter(candidate -> !candidate.equals(url(released))).toList();
+        });
+        uploadStore.sweep();
+
+        assertFalse(Files.exists(released));
+        assertTrue(Files.exists(referenced));
+        verify(derivativeService).deleteDerivatives(released);
+    }
+
+    @Test
+    void imagesCopiedIntoOrdersAndCartsStayReferenced() throws IOException {
+        Path ordered = blob(Duration.ofHours(2));
+        Path inCart = blob(Duration.ofHours(2));
+        when(mongoTemplate.exists(any(Query.class), eq(Product.class))).thenReturn(false);
+        when(mongoTemplate.exists(any(Query.class), eq(Order.class))).thenAnswer(invocation -> mentions(invocation.getArgument(0), ordered));
+        when(mongoTemplate.exists(any(Query.class), eq(Cart.class))).thenAnswer(invocation -> mentions(invocation.getArgument(0), inCart));
+
+        uploadStore.release(AREA, List.of(url(ordered), url(inCart)));
+        assertTrue(Files.exists(ordered));
+        assertTrue(Files.exists(inCart));
+
+        when(mongoTemplate.findDistinct(any(Query.class), eq("items.images"), eq(Order.class), eq(String.class))).thenReturn(List.of(url(ordered)));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("items.images"), eq(Cart.class), eq(String.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<?> urls = (List<?>) query.getQueryObject().get("items.images", Document.class).get("$in");
+            // Only what neither products nor orders reference is asked about; everything else is "in a cart"
+            assertFalse(urls.contains(url(ordered)));
+            return urls;
+        });
+        uploadStore.sweep();
+        assertTrue(Files.exists(ordered));
+        assertTrue(Files.exists(inCart));
+        verify(derivativeService, never()).deleteDerivatives(any());
+    }
+
+    private static boolean mentions(Query query, Path blob) {
+        return url(blob).equals(query.getQueryObject().get("items.images"));
+    }
+
+    private Path blob(Duration age) throws IOException {
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+        Files.createDirectories(AREA.root());
+        Path blob = AREA.root().resolve(HexFormat.of().formatHex(hash) + ".jpg");
+        Files.write(blob, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minus(age)));
+        blobs.add(blob);
+        return blob;
+    }
+
+    private static String url(Path blob) {
+        return AREA.urlPrefix() + blob.getFileName();
+    }
+}